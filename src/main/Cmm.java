@@ -1,13 +1,56 @@
 package main;
 
+import main.input.MappedCharStream;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 public class Cmm {
+    private static CharStream open(String fileName) throws IOException {
+        try {
+            return MappedCharStream.fromFileName(fileName);
+        } catch (IOException | UnsupportedOperationException e) {
+            return CharStreams.fromFileName(fileName);
+        }
+    }
+
     public static void main(String[] args) throws IOException {
-        CharStream reader = CharStreams.fromFileName(args[0]);
         CmmCompiler cmmCompiler = new CmmCompiler();
-        cmmCompiler.compile(reader);
+        boolean streaming = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--fork-jasmin"))
+                cmmCompiler.setInProcessAssembly(false);
+            if (args[i].equals("--direct-bytecode"))
+                cmmCompiler.setDirectBytecode(true);
+            if (args[i].equals("--run-in-memory"))
+                cmmCompiler.setInMemoryExecution(true);
+            if (args[i].equals("--incremental"))
+                cmmCompiler.setIncremental(true);
+            if (args[i].equals("--fast-lexer"))
+                cmmCompiler.setFastLexer(true);
+            if (args[i].equals("--parallel-parse"))
+                cmmCompiler.setParallelParse(true);
+            if (args[i].equals("--parse-stats"))
+                cmmCompiler.setParseStats(true);
+            if (args[i].equals("--streaming"))
+                streaming = true;
+            if (args[i].equals("--output") && i + 1 < args.length)
+                cmmCompiler.setOutputDirectory(new File(args[++i]));
+        }
+        boolean compiled;
+        if (streaming) {
+            try (InputStream input = new FileInputStream(args[0])) {
+                compiled = cmmCompiler.compile(input);
+            }
+        }
+        else {
+            CharStream reader = open(args[0]);
+            compiled = cmmCompiler.compile(reader);
+        }
+        if (!compiled)
+            System.exit(1);
     }
 }
@@ -5,56 +5,262 @@ import main.visitor.codeGenerator.CodeGenerator;
 import main.visitor.name.*;
 import main.visitor.type.*;
 import parsers.*;
+import main.assembler.JasminAssembler;
 import main.ast.nodes.Program;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.cache.CompilationCache;
+import main.input.CmmTokenSource;
+import main.input.DeclarationParser;
+import main.symbolTable.CompilationContext;
+import main.runtime.ProgramRunner;
 import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 public class CmmCompiler {
-    public void compile(CharStream textStream) {
-        System.out.println("\n--------------------------Compiling--------------------------");
-        CmmLexer cmmLexer = new CmmLexer(textStream);
-        CommonTokenStream tokenStream = new CommonTokenStream(cmmLexer);
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+    private boolean inProcessAssembly = true;
+    private boolean directBytecode = false;
+    private boolean inMemoryExecution = false;
+    private boolean incremental = false;
+    private boolean fastLexer = false;
+    private boolean parallelParse = false;
+    private boolean parseStats = false;
+    private File outputDirectory = new File("output");
+    private int parseFallbacks = 0;
+
+    public void setInProcessAssembly(boolean inProcessAssembly) {
+        this.inProcessAssembly = inProcessAssembly;
+    }
+
+    public void setDirectBytecode(boolean directBytecode) {
+        this.directBytecode = directBytecode;
+    }
+
+    public void setInMemoryExecution(boolean inMemoryExecution) {
+        this.inMemoryExecution = inMemoryExecution;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public void setFastLexer(boolean fastLexer) {
+        this.fastLexer = fastLexer;
+    }
+
+    public void setParallelParse(boolean parallelParse) {
+        this.parallelParse = parallelParse;
+    }
+
+    public void setOutputDirectory(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    public void setParseStats(boolean parseStats) {
+        this.parseStats = parseStats;
+    }
+
+    private TokenSource lexer(CharStream textStream) {
+        return fastLexer ? new CmmTokenSource(textStream) : new CmmLexer(textStream);
+    }
+
+    private CmmParser.CmmContext parse(CommonTokenStream tokenStream) {
         CmmParser cmmParser = new CmmParser(tokenStream);
-        Program program = cmmParser.cmm().cmmProgram;
+        cmmParser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        cmmParser.removeErrorListeners();
+        cmmParser.setErrorHandler(new BailErrorStrategy());
+        try {
+            return cmmParser.cmm();
+        } catch (ParseCancellationException e) {
+            parseFallbacks++;
+            tokenStream.seek(0);
+            cmmParser.reset();
+            cmmParser.addErrorListener(ConsoleErrorListener.INSTANCE);
+            cmmParser.setErrorHandler(new DefaultErrorStrategy());
+            cmmParser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            return cmmParser.cmm();
+        }
+    }
+
+    private String textOf(TokenStream tokens, Token start, Token stop) {
+        StringBuilder text = new StringBuilder();
+        for (int i = start.getTokenIndex(); i <= stop.getTokenIndex(); i++)
+            text.append(tokens.get(i).getText()).append(' ');
+        return text.toString();
+    }
+
+    private String textOf(TokenStream tokens, ParserRuleContext context) {
+        return textOf(tokens, context.getStart(), context.getStop());
+    }
+
+    private void fingerprintDeclarations(CompilationCache cache, List<CmmParser.StructDeclarationContext> structs, List<CmmParser.FunctionDeclarationContext> functions,
+                                         CmmParser.MainContext main, TokenStream tokens, Program program) {
+        StringBuilder signatureText = new StringBuilder();
+        for (CmmParser.StructDeclarationContext struct : structs)
+            signatureText.append(textOf(tokens, struct)).append('\n');
+        for (CmmParser.FunctionDeclarationContext function : functions)
+            signatureText.append(textOf(tokens, function.getStart(), tokens.get(function.b.getStart().getTokenIndex() - 1))).append('\n');
+        String signatures = CompilationCache.hash(signatureText.toString());
+        for (int i = 0; i < structs.size(); i++)
+            cache.fingerprint(program.getStructs().get(i), signatures, textOf(tokens, structs.get(i)));
+        for (int i = 0; i < functions.size(); i++)
+            cache.fingerprint(program.getFunctions().get(i), signatures, textOf(tokens, functions.get(i)));
+        cache.fingerprint(program.getMain(), signatures, textOf(tokens, main));
+    }
+
+    private Program parse(CharStream textStream, CompilationCache cache) {
+        CommonTokenStream tokenStream = new CommonTokenStream(lexer(textStream));
+        if (parallelParse) {
+            DeclarationParser declarationParser = new DeclarationParser(tokenStream);
+            if (declarationParser.parse()) {
+                Program program = declarationParser.getProgram();
+                if (cache != null)
+                    fingerprintDeclarations(cache, declarationParser.getStructs(), declarationParser.getFunctions(), declarationParser.getMain(), tokenStream, program);
+                return program;
+            }
+        }
+        CmmParser.CmmContext tree = parse(tokenStream);
+        if (cache != null)
+            fingerprintDeclarations(cache, tree.p.structDeclaration(), tree.p.functionDeclaration(), tree.p.main(), tokenStream, tree.cmmProgram);
+        return tree.cmmProgram;
+    }
+
+    public boolean compile(CharStream textStream) {
+        System.out.println("\n--------------------------Compiling--------------------------");
+        CompilationCache cache = incremental ? new CompilationCache(new File(outputDirectory, "cache/declarations.bin")) : null;
+        Program program = parse(textStream, cache);
+        if (parseStats)
+            System.out.println("SLL parse fallbacks to full LL: " + parseFallbacks);
+        return compile(program, cache);
+    }
+
+    public boolean compile(InputStream input) {
+        System.out.println("\n--------------------------Compiling--------------------------");
+        return compile(parseStreaming(input), null);
+    }
+
+    public Program parse(CharStream textStream) {
+        return parse(textStream, null);
+    }
+
+    public Program parseStreaming(InputStream input) {
+        TokenSource tokenSource = lexer(new UnbufferedCharStream(input, STREAM_BUFFER_SIZE, StandardCharsets.UTF_8));
+        tokenSource.setTokenFactory(new CommonTokenFactory(true));
+        CmmParser cmmParser = new CmmParser(new UnbufferedTokenStream<>(tokenSource, STREAM_BUFFER_SIZE));
+        cmmParser.setBuildParseTree(false);
+        return cmmParser.cmm().cmmProgram;
+    }
+
+    private boolean compile(Program program, CompilationCache cache) {
         ErrorReporter errorReporter = new ErrorReporter();
 
-        NameAnalyser nameAnalyser = new NameAnalyser();
+        CompilationContext context = new CompilationContext(outputDirectory);
+        NameAnalyser nameAnalyser = new NameAnalyser(context);
         program.accept(nameAnalyser);
 
         int numberOfErrors = program.accept(errorReporter);
         if(numberOfErrors > 0)
-            System.exit(1);
+            return false;
 
-        TypeChecker typeChecker = new TypeChecker();
+        TypeChecker typeChecker = new TypeChecker(context);
+        if (cache != null)
+            for (FunctionDeclaration functionDeclaration : program.getFunctions())
+                if (cache.isUpToDate(functionDeclaration))
+                    typeChecker.skip(functionDeclaration);
         program.accept(typeChecker);
 
         numberOfErrors = program.accept(errorReporter);
         if(numberOfErrors > 0)
-            System.exit(1);
+            return false;
 
-        CodeGenerator codeGenerator = new CodeGenerator();
-        program.accept(codeGenerator);
+        Map<String, byte[]> classes = null;
+        CodeGenerator codeGenerator = new CodeGenerator(context, directBytecode);
+        codeGenerator.setCache(cache);
+        try {
+            program.accept(codeGenerator);
+        } catch (UncheckedIOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        if (directBytecode)
+            classes = codeGenerator.getClasses();
 
         System.out.println("Compilation successful");
 
-        runJasminFiles();
+        return runJasminFiles(classes, cache, codeGenerator.getPendingClasses());
+    }
+
+    private Map<String, byte[]> assembleJasminFiles(File dir) throws IOException {
+        JasminAssembler assembler = new JasminAssembler();
+        Map<String, byte[]> classes = assembler.assembleDirectory(dir);
+        assembler.writeClassFiles(classes, dir);
+        return classes;
+    }
+
+    private void forkJasmin(File dir) throws IOException {
+        ArrayList<String> command = new ArrayList<>(Arrays.asList("java", "-jar", "jasmin.jar"));
+        String[] jasminFiles = dir.list((d, name) -> name.endsWith(".j"));
+        if (jasminFiles != null)
+            command.addAll(Arrays.asList(jasminFiles));
+        Process process = Runtime.getRuntime().exec(command.toArray(new String[0]), null, dir);
+        int status = waitFor(process);
+        if (status != 0)
+            throw new IOException("jasmin exited with status " + status);
+    }
+
+    private int waitFor(Process process) throws IOException {
+        printResults(process.getInputStream());
+        printResults(process.getErrorStream());
+        try {
+            return process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private void cacheAssembledClasses(File dir, CompilationCache cache, Map<String, String> pendingClasses) throws IOException {
+        Map<String, byte[]> classes = ProgramRunner.readClassFiles(dir);
+        for (Map.Entry<String, String> entry : pendingClasses.entrySet())
+            if (classes.containsKey(entry.getKey()))
+                cache.storeClass(entry.getValue(), classes.get(entry.getKey()));
     }
 
-    private void runJasminFiles() {
+    private boolean runJasminFiles(Map<String, byte[]> classes, CompilationCache cache, Map<String, String> pendingClasses) {
         try {
             System.out.println("\n-------------------Generating Class Files-------------------");
-            File dir = new File("./output");
-            Process process = Runtime.getRuntime().exec("java -jar jasmin.jar *.j", null, dir);
-            printResults(process.getInputStream());
-            printResults(process.getErrorStream());
+            File dir = outputDirectory;
+            if (directBytecode)
+                System.out.println("Generated directly by the bytecode backend");
+            else if (inProcessAssembly)
+                classes = assembleJasminFiles(dir);
+            else
+                forkJasmin(dir);
+            if (cache != null && !directBytecode) {
+                cacheAssembledClasses(dir, cache, pendingClasses);
+                classes = null;
+            }
+            if (cache != null)
+                cache.save();
             System.out.println("\n---------------------------Output---------------------------");
-            process = Runtime.getRuntime().exec("java Main", null, dir);
-            printResults(process.getInputStream());
-            printResults(process.getErrorStream());
+            if (inMemoryExecution) {
+                if (classes == null)
+                    classes = ProgramRunner.readClassFiles(dir);
+                ProgramRunner runner = new ProgramRunner();
+                System.out.print(runner.run(classes));
+                return !runner.hasFailed();
+            }
+            Process process = Runtime.getRuntime().exec("java Main", null, dir);
+            return waitFor(process) == 0;
         } catch (IOException e) {
             e.printStackTrace();
+            return false;
         }
     }
 
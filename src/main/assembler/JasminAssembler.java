@@ -0,0 +1,58 @@
+package main.assembler;
+
+import jasmin.ClassFile;
+
+import java.io.*;
+import java.util.*;
+
+public class JasminAssembler {
+
+    public byte[] assemble(Reader source, String fileName) throws IOException {
+        ClassFile classFile = new ClassFile();
+        try {
+            classFile.readJasmin(source, fileName, false);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(fileName + ": " + e.getMessage(), e);
+        }
+        if (classFile.errorCount() > 0)
+            throw new IOException(fileName + ": Found " + classFile.errorCount() + " errors");
+
+        ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        try {
+            classFile.write(classBytes);
+        } catch (Exception e) {
+            throw new IOException(fileName + ": " + e.getMessage(), e);
+        }
+        return classBytes.toByteArray();
+    }
+
+    public byte[] assemble(String source, String fileName) throws IOException {
+        return assemble(new StringReader(source), fileName);
+    }
+
+    public Map<String, byte[]> assembleDirectory(File directory) throws IOException {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".j"));
+        if (files == null)
+            return classes;
+        Arrays.sort(files);
+        for (File file : files) {
+            String className = file.getName().substring(0, file.getName().length() - 2);
+            try (Reader reader = new BufferedReader(new FileReader(file))) {
+                classes.put(className, assemble(reader, file.getName()));
+            }
+        }
+        return classes;
+    }
+
+    public void writeClassFiles(Map<String, byte[]> classes, File directory) throws IOException {
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            try (OutputStream out = new FileOutputStream(new File(directory, entry.getKey() + ".class"))) {
+                out.write(entry.getValue());
+            }
+            System.out.println("Generated: " + entry.getKey() + ".class");
+        }
+    }
+}
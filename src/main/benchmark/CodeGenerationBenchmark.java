@@ -0,0 +1,33 @@
+package main.benchmark;
+
+import main.ast.nodes.Program;
+import main.symbolTable.CompilationContext;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Direct bytecode generation for the functions program on fork-join pools of growing parallelism. The code
+// generator forks its per-declaration tasks into the pool it runs in.
+// Usage: CodeGenerationBenchmark [functions=5000] [runs=5] [parallelism...=1 2 4 8]
+public class CodeGenerationBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int functions = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int[] levels = {1, 2, 4, 8};
+        if (args.length > 2) {
+            levels = new int[args.length - 2];
+            for (int i = 2; i < args.length; i++)
+                levels[i - 2] = Integer.parseInt(args[i]);
+        }
+        Program program = Phases.parse(SyntheticPrograms.functions(functions));
+        CompilationContext context = Phases.analyse(program, Phases.temporaryDirectory());
+        System.out.printf("%d functions, %d available processors%n", functions, Runtime.getRuntime().availableProcessors());
+        Phases.best(runs, () -> Phases.generate(program, context, true));
+        for (int parallelism : levels) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            long generate = Phases.best(runs, () -> pool.submit(() -> Phases.generate(program, context, true)).get());
+            pool.shutdown();
+            System.out.printf("parallelism %2d  codegen %8.1f ms%n", parallelism, Phases.millis(generate));
+        }
+    }
+}
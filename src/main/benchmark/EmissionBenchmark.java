@@ -0,0 +1,60 @@
+package main.benchmark;
+
+import main.ast.nodes.Program;
+import main.symbolTable.CompilationContext;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+
+// Jasmin emission on the functions program: the time to generate the .j files, then the generated Main.j
+// written back once flushing after every command, as addCommand used to, and once as a single channel write.
+// Usage: EmissionBenchmark [functions=1500] [runs=5]
+public class EmissionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int functions = args.length > 0 ? Integer.parseInt(args[0]) : 1500;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        String source = SyntheticPrograms.functions(functions);
+        Program program = Phases.parse(source);
+        File directory = Phases.temporaryDirectory();
+        CompilationContext context = Phases.analyse(program, directory);
+        long generate = Phases.best(runs, () -> Phases.generate(program, context, false));
+
+        Path mainFile = directory.toPath().resolve("Main.j");
+        List<String> commands = Files.readAllLines(mainFile, StandardCharsets.UTF_8);
+        byte[] content = Files.readAllBytes(mainFile);
+        Path target = directory.toPath().resolve("Replay.j");
+
+        long perCommand = Phases.best(runs, () -> {
+            try (FileWriter writer = new FileWriter(target.toFile())) {
+                for (String command : commands) {
+                    writer.write(command + "\n");
+                    writer.flush();
+                }
+            }
+            return null;
+        });
+        long buffered = Phases.best(runs, () -> {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            try (FileChannel channel = FileChannel.open(target,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            }
+            return null;
+        });
+
+        System.out.printf("source %d KB, %d functions; Main.j %d KB, %d commands%n",
+                source.length() / 1024, functions, content.length / 1024, commands.size());
+        System.out.printf("jasmin generation      %8.1f ms%n", Phases.millis(generate));
+        System.out.printf("flush per command      %8.1f ms  %7.1f MB/s  %d writes%n",
+                Phases.millis(perCommand), Phases.megabytesPerSecond(content.length, perCommand), commands.size());
+        System.out.printf("one channel write      %8.1f ms  %7.1f MB/s  1 write%n",
+                Phases.millis(buffered), Phases.megabytesPerSecond(content.length, buffered));
+    }
+}
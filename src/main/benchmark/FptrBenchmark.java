@@ -0,0 +1,40 @@
+package main.benchmark;
+
+import main.ast.nodes.Program;
+import main.runtime.ProgramRunner;
+import main.symbolTable.CompilationContext;
+
+import java.util.Map;
+
+// Recursive fibonacci compiled with the direct backend and run in memory, once calling itself directly and
+// once through a function pointer, reported as calls per second.
+// Usage: FptrBenchmark [n=30] [runs=5]
+public class FptrBenchmark {
+
+    private static long calls(int n) {
+        long previous = 1, current = 1;
+        for (int i = 1; i < n; i++) {
+            long next = previous + current;
+            previous = current;
+            current = next;
+        }
+        return 2 * current - 1;
+    }
+
+    private static void run(String label, String source, int n, int runs) throws Exception {
+        Program program = Phases.parse(source);
+        CompilationContext context = Phases.analyse(program, Phases.temporaryDirectory());
+        Map<String, byte[]> classes = Phases.generate(program, context, true).getClasses();
+        String[] output = new String[1];
+        long time = Phases.best(runs, () -> output[0] = new ProgramRunner().run(classes));
+        System.out.printf("%-16s fib(%d) = %s  %8.1f ms  %6.1fM calls/s%n",
+                label, n, output[0].trim(), Phases.millis(time), calls(n) / 1e6 / (time / 1e9));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        run("direct calls", SyntheticPrograms.fibonacci(n, false), n, runs);
+        run("through fptr", SyntheticPrograms.fibonacci(n, true), n, runs);
+    }
+}
@@ -0,0 +1,73 @@
+package main.benchmark;
+
+import main.CmmCompiler;
+import main.ast.nodes.Program;
+import parsers.*;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+
+import java.io.*;
+import java.lang.management.*;
+import java.nio.file.*;
+
+// Heap held and peak heap of one front end, parsing a generated program of the given size to a Program.
+// Run each mode in its own JVM so the peaks do not mix:
+//   tree       char stream, token buffer and parse tree all kept alive, as the compiler used to
+//   buffered   the compiler's buffered front end, which keeps only the Program
+//   streaming  the compiler's unbuffered, tree-free front end
+// Usage: FrontEndHeapBenchmark <tree|buffered|streaming> [megabytes=10 | source file]
+public class FrontEndHeapBenchmark {
+    private static Object retained;
+
+    private static long liveMegabytes() {
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20;
+    }
+
+    private static long peakMegabytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP)
+                peak += pool.getPeakUsage().getUsed();
+        return peak >> 20;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mode = args[0];
+        String size = args.length > 1 ? args[1] : "10";
+        Path source = Files.exists(Paths.get(size)) ? Paths.get(size) : SyntheticPrograms.functionsOfSize(Long.parseLong(size) << 20);
+        long bytes = Files.size(source);
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            pool.resetPeakUsage();
+
+        long start = System.nanoTime();
+        Program program;
+        switch (mode) {
+            case "tree":
+                CharStream chars = CharStreams.fromPath(source);
+                CommonTokenStream tokens = new CommonTokenStream(new CmmLexer(chars));
+                CmmParser cmmParser = new CmmParser(tokens);
+                cmmParser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+                CmmParser.CmmContext tree = cmmParser.cmm();
+                program = tree.cmmProgram;
+                retained = new Object[]{chars, tokens, tree};
+                break;
+            case "buffered":
+                program = new CmmCompiler().parse(CharStreams.fromPath(source));
+                break;
+            case "streaming":
+                try (InputStream input = Files.newInputStream(source)) {
+                    program = new CmmCompiler().parseStreaming(input);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+        long time = System.nanoTime() - start;
+        System.out.printf("%-9s %6.1f MB source, %d functions, %8.1f s, live after parse %5d MB, peak %5d MB%n",
+                mode, bytes / 1048576.0, program.getFunctions().size(), time / 1e9, liveMegabytes(), peakMegabytes());
+        if (args.length < 2 || !Files.exists(Paths.get(args[1])))
+            Files.delete(source);
+    }
+}
@@ -0,0 +1,51 @@
+package main.benchmark;
+
+import main.input.CmmTokenSource;
+import main.input.MappedCharStream;
+import parsers.CmmLexer;
+import org.antlr.v4.runtime.*;
+
+import java.nio.file.*;
+
+// Lexing throughput of the generated CmmLexer and the hand-written CmmTokenSource over a generated program,
+// reading it through CharStreams or through MappedCharStream. Only nextToken is timed. Each char stream is
+// measured in its own JVM, since the lexers' LA call sites slow down once they have seen both.
+// Usage: LexerBenchmark <CharStreams|MappedCharStream> [megabytes=20 | source file] [runs=3]
+public class LexerBenchmark {
+
+    private static CharStream open(Path source, boolean mapped) throws Exception {
+        return mapped ? MappedCharStream.fromFileName(source.toString()) : CharStreams.fromPath(source);
+    }
+
+    private static long lex(TokenSource tokenSource) {
+        long tokens = 0;
+        while (tokenSource.nextToken().getType() != Token.EOF)
+            tokens++;
+        return tokens;
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean mapped = args[0].equals("MappedCharStream");
+        String size = args.length > 1 ? args[1] : "20";
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        boolean generated = !Files.exists(Paths.get(size));
+        Path source = generated ? SyntheticPrograms.functionsOfSize(Long.parseLong(size) << 20) : Paths.get(size);
+        long bytes = Files.size(source);
+        System.out.printf("%.1f MB source%n", bytes / 1048576.0);
+        for (boolean fast : new boolean[]{false, true}) {
+            long best = Long.MAX_VALUE;
+            long tokens = 0;
+            for (int i = 0; i < runs; i++) {
+                CharStream input = open(source, mapped);
+                long start = System.nanoTime();
+                tokens = lex(fast ? new CmmTokenSource(input) : new CmmLexer(input));
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.printf("%-16s %-14s %8.1f ms  %6.1f MB/s  %5.1fM tokens/s%n",
+                    args[0], fast ? "CmmTokenSource" : "CmmLexer",
+                    Phases.millis(best), Phases.megabytesPerSecond(bytes, best), tokens / 1e6 / (best / 1e9));
+        }
+        if (generated)
+            Files.delete(source);
+    }
+}
@@ -0,0 +1,56 @@
+package main.benchmark;
+
+import main.CmmCompiler;
+import parsers.*;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Lexing and parsing throughput with full LL prediction, as the compiler used to parse, against the compiler's
+// SLL-first parse, on the samples and two generated programs. An SLL failure column means the SLL-first parse
+// had to fall back to full LL for that input.
+// Usage: ParseBenchmark [sample directory=samples] [functions...=1500 5000]
+public class ParseBenchmark {
+
+    private static boolean parsesWithSll(String source) {
+        CmmParser cmmParser = new CmmParser(new CommonTokenStream(new CmmLexer(CharStreams.fromString(source))));
+        cmmParser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        cmmParser.removeErrorListeners();
+        cmmParser.setErrorHandler(new BailErrorStrategy());
+        try {
+            cmmParser.cmm();
+            return true;
+        } catch (ParseCancellationException e) {
+            return false;
+        }
+    }
+
+    private static void run(String name, String source) throws Exception {
+        int bytes = source.getBytes(StandardCharsets.UTF_8).length;
+        int runs = bytes > 100000 ? 3 : 20;
+        CmmCompiler compiler = new CmmCompiler();
+        long ll = Phases.best(runs, () -> new CmmParser(new CommonTokenStream(new CmmLexer(CharStreams.fromString(source)))).cmm());
+        long sll = Phases.best(runs, () -> compiler.parse(CharStreams.fromString(source)));
+        System.out.printf("%-24s %8d B  LL %9.2f ms %7.2f MB/s  SLL-first %9.2f ms %7.2f MB/s  %s%n",
+                name, bytes, Phases.millis(ll), Phases.megabytesPerSecond(bytes, ll),
+                Phases.millis(sll), Phases.megabytesPerSecond(bytes, sll), parsesWithSll(source) ? "" : "SLL failure");
+    }
+
+    public static void main(String[] args) throws Exception {
+        File samples = new File(args.length > 0 ? args[0] : "samples");
+        File[] files = samples.listFiles((dir, name) -> name.endsWith(".cmm"));
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files)
+                run(file.getName(), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        }
+        String[] sizes = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : new String[]{"1500", "5000"};
+        for (String functions : sizes)
+            run(functions + " functions", SyntheticPrograms.functions(Integer.parseInt(functions)));
+    }
+}
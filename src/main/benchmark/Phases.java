@@ -0,0 +1,63 @@
+package main.benchmark;
+
+import main.ast.nodes.Program;
+import main.symbolTable.CompilationContext;
+import main.visitor.ErrorReporter;
+import main.visitor.codeGenerator.CodeGenerator;
+import main.visitor.name.NameAnalyser;
+import main.visitor.type.TypeChecker;
+import parsers.*;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.Callable;
+
+// Runs the compiler's phases one at a time, so a benchmark can time just the phase it is about.
+class Phases {
+
+    static Program parse(String source) {
+        CmmParser cmmParser = new CmmParser(new CommonTokenStream(new CmmLexer(CharStreams.fromString(source))));
+        cmmParser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        return cmmParser.cmm().cmmProgram;
+    }
+
+    static CompilationContext analyse(Program program, File outputDirectory) {
+        CompilationContext context = new CompilationContext(outputDirectory);
+        program.accept(new NameAnalyser(context));
+        program.accept(new TypeChecker(context));
+        if (program.accept(new ErrorReporter()) > 0)
+            throw new IllegalStateException("The benchmark program does not compile");
+        return context;
+    }
+
+    static CodeGenerator generate(Program program, CompilationContext context, boolean directBytecode) {
+        CodeGenerator codeGenerator = new CodeGenerator(context, directBytecode);
+        program.accept(codeGenerator);
+        return codeGenerator;
+    }
+
+    static File temporaryDirectory() throws IOException {
+        return Files.createTempDirectory("cmm-benchmark-").toFile();
+    }
+
+    // The fastest of `runs` runs, in nanoseconds.
+    static long best(int runs, Callable<?> task) throws Exception {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            task.call();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    static double megabytesPerSecond(long bytes, long nanos) {
+        return bytes / 1e6 / (nanos / 1e9);
+    }
+}
@@ -0,0 +1,28 @@
+package main.benchmark;
+
+import main.ast.nodes.Program;
+import main.symbolTable.CompilationContext;
+
+// Code generation for one function with many locals, for growing local counts. With hash-based slot lookup
+// the time grows about linearly; the old list scan made it quadratic. The Jasmin backend is used because
+// from about 6000 locals the method no longer fits the 64 KB a class file allows.
+// Usage: SlotAllocationBenchmark [runs=5] [locals...=1000 4000 16000]
+public class SlotAllocationBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int[] counts = {1000, 4000, 16000};
+        if (args.length > 1) {
+            counts = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++)
+                counts[i - 1] = Integer.parseInt(args[i]);
+        }
+        for (int locals : counts) {
+            Program program = Phases.parse(SyntheticPrograms.locals(locals));
+            CompilationContext context = Phases.analyse(program, Phases.temporaryDirectory());
+            long generate = Phases.best(runs, () -> Phases.generate(program, context, false));
+            System.out.printf("%6d locals  codegen %8.1f ms  %6.1f us/local%n",
+                    locals, Phases.millis(generate), generate / 1e3 / locals);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package main.benchmark;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+// Generators for the large, valid C-- programs the benchmarks run on.
+public class SyntheticPrograms {
+
+    private static void function(Appendable out, int index) throws IOException {
+        out.append("int f").append(String.valueOf(index)).append("(int x) begin\n")
+                .append("    int i = 0\n")
+                .append("    int s = 0\n")
+                .append("    list #int l\n")
+                .append("    while i < 3 begin\n")
+                .append("        append(l, x + i)\n")
+                .append("        s = s + l[i] * ").append(String.valueOf(index % 13 + 1)).append('\n')
+                .append("        i = i + 1\n")
+                .append("    end\n")
+                .append("    if s > 100 begin\n")
+                .append("        s = s - 100\n")
+                .append("    end\n")
+                .append("    else\n")
+                .append("        s = s + ").append(String.valueOf(index)).append('\n')
+                .append("    return s\n")
+                .append("end\n");
+    }
+
+    // A struct, `functions` small functions with loops, lists and if/else, and a main that calls each of them once.
+    public static void functions(Appendable out, int functions) throws IOException {
+        out.append("struct Acc begin\n    int total\n    list #int seen\nend\n");
+        for (int i = 0; i < functions; i++)
+            function(out, i);
+        out.append("main() begin\n    struct Acc a\n    int t = 0\n");
+        for (int i = 0; i < functions; i++)
+            out.append("    t = t + f").append(String.valueOf(i)).append('(').append(String.valueOf(i % 17)).append(")\n");
+        out.append("    a.total = t\n    display(a.total)\nend\n");
+    }
+
+    public static String functions(int functions) {
+        StringBuilder out = new StringBuilder();
+        try {
+            functions(out, functions);
+        } catch (IOException e) {//unreachable
+        }
+        return out.toString();
+    }
+
+    // The functions program with as many functions as it takes to reach about `bytes` bytes of source.
+    public static Path functionsOfSize(long bytes) throws IOException {
+        int functions = (int) Math.max(1, bytes / (functions(1000).length() / 1000));
+        Path file = Files.createTempFile("cmm-functions-", ".cmm");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            functions(out, functions);
+        }
+        return file;
+    }
+
+    // One function declaring `locals` variables, each initialised from the previous ones.
+    public static String locals(int locals) {
+        StringBuilder out = new StringBuilder("int f(int x) begin\n");
+        for (int i = 0; i < locals; i++)
+            out.append("    int v").append(i).append(" = x + ").append(i).append('\n');
+        out.append("    return v").append(locals - 1).append(" + v0\nend\n");
+        out.append("main() begin\n    display(f(1))\nend\n");
+        return out.toString();
+    }
+
+    // Recursive fibonacci of n, either calling itself directly or through a local function pointer.
+    public static String fibonacci(int n, boolean throughFptr) {
+        StringBuilder out = new StringBuilder("int fib(int n) begin\n");
+        if (throughFptr)
+            out.append("    fptr<int -> int> self\n    self = fib\n");
+        String call = throughFptr ? "self" : "fib";
+        out.append("    if n < 2\n        return n\n");
+        out.append("    return ").append(call).append("(n - 1) + ").append(call).append("(n - 2)\nend\n");
+        out.append("main() begin\n    display(fib(").append(n).append("))\nend\n");
+        return out.toString();
+    }
+
+    public static Path write(String program) throws IOException {
+        Path file = Files.createTempFile("cmm-", ".cmm");
+        Files.write(file, program.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
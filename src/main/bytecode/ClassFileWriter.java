@@ -0,0 +1,69 @@
+package main.bytecode;
+
+import java.io.*;
+import java.util.*;
+
+public class ClassFileWriter implements Opcodes {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int MAJOR_VERSION = 49;
+
+    private final ConstantPool constantPool = new ConstantPool();
+    private final String name;
+    private final String superName;
+    private final ArrayList<String[]> fields = new ArrayList<>();
+    private final ArrayList<MethodBuilder> methods = new ArrayList<>();
+
+    public ClassFileWriter(String name, String superName) {
+        this.name = name;
+        this.superName = superName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void addField(String fieldName, String descriptor) {
+        fields.add(new String[]{fieldName, descriptor});
+    }
+
+    public MethodBuilder addMethod(int access, String methodName, String descriptor) {
+        MethodBuilder method = new MethodBuilder(constantPool, access, methodName, descriptor);
+        methods.add(method);
+        return method;
+    }
+
+    public byte[] toByteArray() {
+        if (fields.size() > 0xffff || methods.size() > 0xffff)
+            throw new IllegalStateException("Class " + name + " has more than 65535 fields or methods");
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            DataOutputStream bodyOut = new DataOutputStream(body);
+            bodyOut.writeShort(ACC_PUBLIC | ACC_SUPER);
+            bodyOut.writeShort(constantPool.classRef(name));
+            bodyOut.writeShort(constantPool.classRef(superName));
+            bodyOut.writeShort(0);
+            bodyOut.writeShort(fields.size());
+            for (String[] field : fields) {
+                bodyOut.writeShort(0);
+                bodyOut.writeShort(constantPool.utf8(field[0]));
+                bodyOut.writeShort(constantPool.utf8(field[1]));
+                bodyOut.writeShort(0);
+            }
+            bodyOut.writeShort(methods.size());
+            for (MethodBuilder method : methods)
+                method.write(bodyOut);
+            bodyOut.writeShort(0);
+
+            ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(classBytes);
+            out.writeInt(MAGIC);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            constantPool.write(out);
+            body.writeTo(out);
+            return classBytes.toByteArray();
+        } catch (IOException e) {//unreachable
+            return null;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package main.bytecode;
+
+import java.util.*;
+
+public class ClassModel {
+    private final String name;
+    private final String superName;
+    private final ArrayList<String[]> fields = new ArrayList<>();
+    private final ArrayList<MethodModel> methods = new ArrayList<>();
+
+    public ClassModel(String name, String superName) {
+        this.name = name;
+        this.superName = superName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSuperName() {
+        return superName;
+    }
+
+    public void addField(String fieldName, String descriptor) {
+        fields.add(new String[]{fieldName, descriptor});
+    }
+
+    public ArrayList<String[]> getFields() {
+        return fields;
+    }
+
+    public MethodModel addMethod(int access, String methodName, String descriptor) {
+        MethodModel method = new MethodModel(access, methodName, descriptor);
+        methods.add(method);
+        return method;
+    }
+
+    public void addMethod(MethodModel method) {
+        methods.add(method);
+    }
+
+    public ArrayList<MethodModel> getMethods() {
+        return methods;
+    }
+
+    public byte[] toByteArray() {
+        ClassFileWriter writer = new ClassFileWriter(name, superName);
+        for (String[] field : fields)
+            writer.addField(field[0], field[1]);
+        for (MethodModel method : methods) {
+            MethodBuilder builder = writer.addMethod(method.getAccess(), method.getName(), method.getDescriptor());
+            builder.setMaxStack(method.getMaxStack());
+            builder.setMaxLocals(method.getMaxLocals());
+            builder.emit(method.getCode());
+        }
+        return writer.toByteArray();
+    }
+
+    public String toJasmin() {
+        return new JasminWriter().write(this);
+    }
+}
@@ -0,0 +1,119 @@
+package main.bytecode;
+
+import java.io.*;
+import java.util.*;
+
+public class ConstantPool {
+    private static final int UTF8 = 1;
+    private static final int INTEGER = 3;
+    private static final int CLASS = 7;
+    private static final int STRING = 8;
+    private static final int FIELD_REF = 9;
+    private static final int METHOD_REF = 10;
+    private static final int NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream entries = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(entries);
+    private final Map<String, Integer> indices = new HashMap<>();
+    private int count = 1;
+
+    private Integer lookup(String key) {
+        return indices.get(key);
+    }
+
+    private int register(String key) {
+        if (count == 0xffff)
+            throw new IllegalStateException("Constant pool exceeds 65535 entries");
+        int index = count++;
+        indices.put(key, index);
+        return index;
+    }
+
+    public int utf8(String value) {
+        String key = UTF8 + ":" + value;
+        Integer index = lookup(key);
+        if (index != null)
+            return index;
+        try {
+            out.writeByte(UTF8);
+            out.writeUTF(value);
+        } catch (UTFDataFormatException e) {
+            throw new IllegalStateException("Constant exceeds 65535 bytes of modified UTF-8", e);
+        } catch (IOException e) {//unreachable
+        }
+        return register(key);
+    }
+
+    public int integer(int value) {
+        String key = INTEGER + ":" + value;
+        Integer index = lookup(key);
+        if (index != null)
+            return index;
+        try {
+            out.writeByte(INTEGER);
+            out.writeInt(value);
+        } catch (IOException e) {//unreachable
+        }
+        return register(key);
+    }
+
+    private int indexed(int tag, String key, int first) {
+        Integer index = lookup(key);
+        if (index != null)
+            return index;
+        try {
+            out.writeByte(tag);
+            out.writeShort(first);
+        } catch (IOException e) {//unreachable
+        }
+        return register(key);
+    }
+
+    private int indexed(int tag, String key, int first, int second) {
+        Integer index = lookup(key);
+        if (index != null)
+            return index;
+        try {
+            out.writeByte(tag);
+            out.writeShort(first);
+            out.writeShort(second);
+        } catch (IOException e) {//unreachable
+        }
+        return register(key);
+    }
+
+    public int classRef(String internalName) {
+        String key = CLASS + ":" + internalName;
+        Integer index = lookup(key);
+        return index != null ? index : indexed(CLASS, key, utf8(internalName));
+    }
+
+    public int string(String value) {
+        String key = STRING + ":" + value;
+        Integer index = lookup(key);
+        return index != null ? index : indexed(STRING, key, utf8(value));
+    }
+
+    public int nameAndType(String name, String descriptor) {
+        String key = NAME_AND_TYPE + ":" + name + ":" + descriptor;
+        Integer index = lookup(key);
+        return index != null ? index : indexed(NAME_AND_TYPE, key, utf8(name), utf8(descriptor));
+    }
+
+    public int fieldRef(String owner, String name, String descriptor) {
+        String key = FIELD_REF + ":" + owner + "." + name + ":" + descriptor;
+        Integer index = lookup(key);
+        return index != null ? index : indexed(FIELD_REF, key, classRef(owner), nameAndType(name, descriptor));
+    }
+
+    public int methodRef(String owner, String name, String descriptor) {
+        String key = METHOD_REF + ":" + owner + "." + name + ":" + descriptor;
+        Integer index = lookup(key);
+        return index != null ? index : indexed(METHOD_REF, key, classRef(owner), nameAndType(name, descriptor));
+    }
+
+    public void write(DataOutputStream classOut) throws IOException {
+        classOut.writeShort(count);
+        entries.writeTo(classOut);
+    }
+}
@@ -0,0 +1,95 @@
+package main.bytecode;
+
+public class Instruction implements Opcodes {
+    public static final int LABEL = -1;
+
+    private final int opcode;
+    private final int var;
+    private final Object constant;
+    private final String owner;
+    private final String name;
+    private final String descriptor;
+    private final Label label;
+
+    private Instruction(int opcode, int var, Object constant, String owner, String name, String descriptor, Label label) {
+        this.opcode = opcode;
+        this.var = var;
+        this.constant = constant;
+        this.owner = owner;
+        this.name = name;
+        this.descriptor = descriptor;
+        this.label = label;
+    }
+
+    public static Instruction simple(int opcode) {
+        return new Instruction(opcode, -1, null, null, null, null, null);
+    }
+
+    public static Instruction var(int opcode, int slot) {
+        return new Instruction(opcode, slot, null, null, null, null, null);
+    }
+
+    public static Instruction ldc(Object constant) {
+        return new Instruction(LDC, -1, constant, null, null, null, null);
+    }
+
+    public static Instruction type(int opcode, String internalName) {
+        return new Instruction(opcode, -1, null, internalName, null, null, null);
+    }
+
+    public static Instruction member(int opcode, String owner, String name, String descriptor) {
+        return new Instruction(opcode, -1, null, owner, name, descriptor, null);
+    }
+
+    public static Instruction jump(int opcode, Label label) {
+        return new Instruction(opcode, -1, null, null, null, null, label);
+    }
+
+    public static Instruction mark(Label label) {
+        return new Instruction(LABEL, -1, null, null, null, null, label);
+    }
+
+    public int getOpcode() {
+        return opcode;
+    }
+
+    public int getVar() {
+        return var;
+    }
+
+    public Object getConstant() {
+        return constant;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescriptor() {
+        return descriptor;
+    }
+
+    public Label getLabel() {
+        return label;
+    }
+
+    public boolean isVar() {
+        return var >= 0;
+    }
+
+    public boolean isType() {
+        return owner != null && name == null;
+    }
+
+    public boolean isMember() {
+        return name != null;
+    }
+
+    public boolean isJump() {
+        return label != null && opcode != LABEL;
+    }
+}
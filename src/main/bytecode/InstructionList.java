@@ -0,0 +1,60 @@
+package main.bytecode;
+
+import java.util.*;
+
+public class InstructionList implements Iterable<Instruction>, Opcodes {
+    private final ArrayList<Instruction> instructions = new ArrayList<>();
+
+    public void add(Instruction instruction) {
+        instructions.add(instruction);
+    }
+
+    public void emit(int opcode) {
+        add(Instruction.simple(opcode));
+    }
+
+    public void emitVar(int opcode, int slot) {
+        add(Instruction.var(opcode, slot));
+    }
+
+    public void emitType(int opcode, String internalName) {
+        add(Instruction.type(opcode, internalName));
+    }
+
+    public void emitField(int opcode, String owner, String name, String descriptor) {
+        add(Instruction.member(opcode, owner, name, descriptor));
+    }
+
+    public void emitMethod(int opcode, String owner, String name, String descriptor) {
+        add(Instruction.member(opcode, owner, name, descriptor));
+    }
+
+    public void emitLdc(int value) {
+        add(Instruction.ldc(value));
+    }
+
+    public void emitLdc(String value) {
+        add(Instruction.ldc(value));
+    }
+
+    public void emitJump(int opcode, Label label) {
+        add(Instruction.jump(opcode, label));
+    }
+
+    public void mark(Label label) {
+        add(Instruction.mark(label));
+    }
+
+    public int size() {
+        return instructions.size();
+    }
+
+    public Instruction get(int index) {
+        return instructions.get(index);
+    }
+
+    @Override
+    public Iterator<Instruction> iterator() {
+        return instructions.iterator();
+    }
+}
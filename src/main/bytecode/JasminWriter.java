@@ -0,0 +1,94 @@
+package main.bytecode;
+
+import java.util.*;
+
+public class JasminWriter implements Opcodes {
+    private static final Map<Integer, String> MNEMONICS = new HashMap<>();
+
+    static {
+        String[][] table = {
+                {"aconst_null", "1"}, {"ldc", "18"},
+                {"iload", "21"}, {"aload", "25"}, {"istore", "54"}, {"astore", "58"},
+                {"pop", "87"}, {"dup", "89"}, {"dup_x1", "90"}, {"dup_x2", "91"},
+                {"iadd", "96"}, {"isub", "100"}, {"imul", "104"}, {"idiv", "108"},
+                {"ifeq", "153"}, {"ifne", "154"}, {"if_icmpne", "160"},
+                {"if_icmpge", "162"}, {"if_icmple", "164"},
+                {"if_acmpne", "166"}, {"goto", "167"}, {"ireturn", "172"}, {"areturn", "176"}, {"return", "177"},
+                {"getstatic", "178"}, {"putstatic", "179"}, {"getfield", "180"}, {"putfield", "181"},
+                {"invokevirtual", "182"}, {"invokespecial", "183"},
+                {"new", "187"}, {"checkcast", "192"}
+        };
+        for (String[] entry : table)
+            MNEMONICS.put(Integer.parseInt(entry[1]), entry[0]);
+    }
+
+    private final Map<Label, String> labelNames = new HashMap<>();
+    private StringBuilder out;
+
+    public static String mnemonic(int opcode) {
+        String mnemonic = MNEMONICS.get(opcode);
+        if (mnemonic == null)
+            throw new IllegalArgumentException("No Jasmin mnemonic for opcode " + opcode);
+        return mnemonic;
+    }
+
+    private String labelName(Label label) {
+        return labelNames.computeIfAbsent(label, l -> "Label_" + labelNames.size());
+    }
+
+    private static String accessOf(int access) {
+        String modifiers = "";
+        if ((access & ACC_PUBLIC) != 0)
+            modifiers += "public ";
+        if ((access & ACC_STATIC) != 0)
+            modifiers += "static ";
+        return modifiers;
+    }
+
+    private void command(String command) {
+        out.append("\t\t").append(command).append('\n');
+    }
+
+    private void writeInstruction(Instruction instruction) {
+        int opcode = instruction.getOpcode();
+        if (opcode == Instruction.LABEL) {
+            out.append('\t').append(labelName(instruction.getLabel())).append(":\n");
+            return;
+        }
+        String mnemonic = mnemonic(opcode);
+        if (instruction.isJump())
+            command(mnemonic + " " + labelName(instruction.getLabel()));
+        else if (instruction.isVar())
+            command(mnemonic + " " + instruction.getVar());
+        else if (opcode == LDC && instruction.getConstant() instanceof String)
+            command(mnemonic + " \"" + instruction.getConstant() + "\"");
+        else if (opcode == LDC)
+            command(mnemonic + " " + instruction.getConstant());
+        else if (instruction.isMember() && instruction.getDescriptor().startsWith("("))
+            command(mnemonic + " " + instruction.getOwner() + "/" + instruction.getName() + instruction.getDescriptor());
+        else if (instruction.isMember())
+            command(mnemonic + " " + instruction.getOwner() + "/" + instruction.getName() + " " + instruction.getDescriptor());
+        else if (instruction.isType())
+            command(mnemonic + " " + instruction.getOwner());
+        else
+            command(mnemonic);
+    }
+
+    public String write(ClassModel classModel) {
+        out = new StringBuilder();
+        out.append(".class public ").append(classModel.getName()).append('\n');
+        out.append(".super ").append(classModel.getSuperName()).append('\n');
+        for (String[] field : classModel.getFields())
+            out.append(".field ").append(field[0]).append(' ').append(field[1]).append('\n');
+        for (MethodModel method : classModel.getMethods()) {
+            out.append(".method ").append(accessOf(method.getAccess()))
+                    .append(method.getName()).append(method.getDescriptor()).append('\n');
+            out.append(".limit stack ").append(method.getMaxStack()).append('\n');
+            out.append(".limit locals ").append(method.getMaxLocals()).append('\n');
+            for (Instruction instruction : method.getCode())
+                writeInstruction(instruction);
+            out.append(".end method\n");
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,4 @@
+package main.bytecode;
+
+public class Label {
+}
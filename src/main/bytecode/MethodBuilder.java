@@ -0,0 +1,174 @@
+package main.bytecode;
+
+import java.io.*;
+import java.util.*;
+
+public class MethodBuilder implements Opcodes {
+    private static class Fixup {
+        final Label label;
+        final int instructionPosition;
+        final int operandPosition;
+
+        Fixup(Label label, int instructionPosition, int operandPosition) {
+            this.label = label;
+            this.instructionPosition = instructionPosition;
+            this.operandPosition = operandPosition;
+        }
+    }
+
+    private final ConstantPool constantPool;
+    private final int access;
+    private final String name;
+    private final String descriptor;
+    private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+    private final ArrayList<Fixup> fixups = new ArrayList<>();
+    private final Map<Label, Integer> labelPositions = new HashMap<>();
+    private int maxStack = 128;
+    private int maxLocals = 128;
+
+    MethodBuilder(ConstantPool constantPool, int access, String name, String descriptor) {
+        this.constantPool = constantPool;
+        this.access = access;
+        this.name = name;
+        this.descriptor = descriptor;
+    }
+
+    public void setMaxStack(int maxStack) {
+        this.maxStack = maxStack;
+    }
+
+    public void setMaxLocals(int maxLocals) {
+        this.maxLocals = maxLocals;
+    }
+
+    private void u1(int value) {
+        code.write(value);
+    }
+
+    private void u2(int value) {
+        code.write(value >>> 8);
+        code.write(value);
+    }
+
+    public void emit(int opcode) {
+        u1(opcode);
+    }
+
+    public void emitVar(int opcode, int slot) {
+        int shortForm = opcode == ALOAD ? ALOAD_0 : opcode == ILOAD ? ILOAD_0
+                : opcode == ASTORE ? ASTORE_0 : opcode == ISTORE ? ISTORE_0 : -1;
+        if (slot <= 3 && shortForm != -1) {
+            u1(shortForm + slot);
+        } else if (slot <= 0xff) {
+            u1(opcode);
+            u1(slot);
+        } else {
+            u1(WIDE);
+            u1(opcode);
+            u2(slot);
+        }
+    }
+
+    public void emitType(int opcode, String internalName) {
+        u1(opcode);
+        u2(constantPool.classRef(internalName));
+    }
+
+    public void emitField(int opcode, String owner, String name, String descriptor) {
+        u1(opcode);
+        u2(constantPool.fieldRef(owner, name, descriptor));
+    }
+
+    public void emitMethod(int opcode, String owner, String name, String descriptor) {
+        u1(opcode);
+        u2(constantPool.methodRef(owner, name, descriptor));
+    }
+
+    private void emitLdcIndex(int index) {
+        if (index <= 0xff) {
+            u1(LDC);
+            u1(index);
+        } else {
+            u1(LDC_W);
+            u2(index);
+        }
+    }
+
+    public void emitLdc(int value) {
+        emitLdcIndex(constantPool.integer(value));
+    }
+
+    public void emitLdc(String value) {
+        emitLdcIndex(constantPool.string(value));
+    }
+
+    public void emitJump(int opcode, Label label) {
+        int instructionPosition = code.size();
+        u1(opcode);
+        fixups.add(new Fixup(label, instructionPosition, code.size()));
+        u2(0);
+    }
+
+    public void mark(Label label) {
+        labelPositions.put(label, code.size());
+    }
+
+    public void emit(InstructionList instructions) {
+        for (Instruction instruction : instructions) {
+            int opcode = instruction.getOpcode();
+            if (opcode == Instruction.LABEL)
+                mark(instruction.getLabel());
+            else if (instruction.isJump())
+                emitJump(opcode, instruction.getLabel());
+            else if (instruction.isVar())
+                emitVar(opcode, instruction.getVar());
+            else if (opcode == LDC && instruction.getConstant() instanceof String)
+                emitLdc((String) instruction.getConstant());
+            else if (opcode == LDC)
+                emitLdc((Integer) instruction.getConstant());
+            else if (instruction.isMember() && (opcode == GETFIELD || opcode == PUTFIELD || opcode == GETSTATIC || opcode == PUTSTATIC))
+                emitField(opcode, instruction.getOwner(), instruction.getName(), instruction.getDescriptor());
+            else if (instruction.isMember())
+                emitMethod(opcode, instruction.getOwner(), instruction.getName(), instruction.getDescriptor());
+            else if (instruction.isType())
+                emitType(opcode, instruction.getOwner());
+            else
+                emit(opcode);
+        }
+    }
+
+    private byte[] resolveCode() {
+        byte[] bytes = code.toByteArray();
+        if (bytes.length > 0xffff)
+            throw new IllegalStateException("Code of method " + name + " exceeds 65535 bytes");
+        for (Fixup fixup : fixups) {
+            Integer position = labelPositions.get(fixup.label);
+            if (position == null)
+                throw new IllegalStateException("Unmarked label in method " + name);
+            int offset = position - fixup.instructionPosition;
+            if (offset != (short) offset)
+                throw new IllegalStateException("Branch offset " + offset + " in method " + name + " does not fit in 16 bits");
+            bytes[fixup.operandPosition] = (byte) (offset >>> 8);
+            bytes[fixup.operandPosition + 1] = (byte) offset;
+        }
+        return bytes;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        byte[] bytes = resolveCode();
+        if (maxStack > 0xffff || maxLocals > 0xffff)
+            throw new IllegalStateException("Operand stack or locals of method " + name + " exceed 65535 slots");
+        out.writeShort(access);
+        out.writeShort(constantPool.utf8(name));
+        out.writeShort(constantPool.utf8(descriptor));
+        out.writeShort(1);
+        out.writeShort(constantPool.utf8("Code"));
+        out.writeInt(12 + bytes.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+}
@@ -0,0 +1,44 @@
+package main.bytecode;
+
+public class MethodModel {
+    private final int access;
+    private final String name;
+    private final String descriptor;
+    private final InstructionList code = new InstructionList();
+    private int maxStack = -1;
+    private int maxLocals = -1;
+
+    public MethodModel(int access, String name, String descriptor) {
+        this.access = access;
+        this.name = name;
+        this.descriptor = descriptor;
+    }
+
+    public int getAccess() {
+        return access;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescriptor() {
+        return descriptor;
+    }
+
+    public InstructionList getCode() {
+        return code;
+    }
+
+    public int getMaxStack() {
+        if (maxStack < 0)
+            maxStack = new StackAnalyzer(code).maxStack();
+        return maxStack;
+    }
+
+    public int getMaxLocals() {
+        if (maxLocals < 0)
+            maxLocals = StackAnalyzer.maxLocals(this);
+        return maxLocals;
+    }
+}
@@ -0,0 +1,46 @@
+package main.bytecode;
+
+public interface Opcodes {
+    int ACC_PUBLIC = 0x0001;
+    int ACC_STATIC = 0x0008;
+    int ACC_SUPER = 0x0020;
+
+    int ACONST_NULL = 0x01;
+    int LDC = 0x12;
+    int LDC_W = 0x13;
+    int ILOAD = 0x15;
+    int ALOAD = 0x19;
+    int ILOAD_0 = 0x1a;
+    int ALOAD_0 = 0x2a;
+    int ISTORE = 0x36;
+    int ASTORE = 0x3a;
+    int ISTORE_0 = 0x3b;
+    int ASTORE_0 = 0x4b;
+    int POP = 0x57;
+    int DUP = 0x59;
+    int DUP_X1 = 0x5a;
+    int DUP_X2 = 0x5b;
+    int IADD = 0x60;
+    int ISUB = 0x64;
+    int IMUL = 0x68;
+    int IDIV = 0x6c;
+    int IFEQ = 0x99;
+    int IFNE = 0x9a;
+    int IF_ICMPNE = 0xa0;
+    int IF_ICMPGE = 0xa2;
+    int IF_ICMPLE = 0xa4;
+    int IF_ACMPNE = 0xa6;
+    int GOTO = 0xa7;
+    int IRETURN = 0xac;
+    int ARETURN = 0xb0;
+    int RETURN = 0xb1;
+    int GETSTATIC = 0xb2;
+    int PUTSTATIC = 0xb3;
+    int GETFIELD = 0xb4;
+    int PUTFIELD = 0xb5;
+    int INVOKEVIRTUAL = 0xb6;
+    int INVOKESPECIAL = 0xb7;
+    int NEW = 0xbb;
+    int CHECKCAST = 0xc0;
+    int WIDE = 0xc4;
+}
@@ -0,0 +1,156 @@
+package main.bytecode;
+
+import java.util.*;
+
+public class StackAnalyzer implements Opcodes {
+    private final InstructionList code;
+    private final Map<Label, Integer> labelIndex = new HashMap<>();
+    private final int[] depthAt;
+
+    public StackAnalyzer(InstructionList code) {
+        this.code = code;
+        this.depthAt = new int[code.size()];
+        Arrays.fill(depthAt, -1);
+        for (int i = 0; i < code.size(); i++) {
+            Instruction instruction = code.get(i);
+            if (instruction.getOpcode() == Instruction.LABEL)
+                labelIndex.put(instruction.getLabel(), i);
+        }
+    }
+
+    public static int maxLocals(MethodModel method) {
+        int maxLocals = argumentsSize(method.getDescriptor());
+        if ((method.getAccess() & ACC_STATIC) == 0)
+            maxLocals++;
+        for (Instruction instruction : method.getCode())
+            if (instruction.isVar())
+                maxLocals = Math.max(maxLocals, instruction.getVar() + 1);
+        return maxLocals;
+    }
+
+    public int maxStack() {
+        int maxStack = 0;
+        ArrayDeque<Integer> worklist = new ArrayDeque<>();
+        reach(0, 0, worklist);
+        while (!worklist.isEmpty()) {
+            int index = worklist.pop();
+            int depth = depthAt[index];
+            while (index < code.size()) {
+                Instruction instruction = code.get(index);
+                depth += stackEffect(instruction);
+                if (depth < 0)
+                    throw new IllegalStateException("Operand stack underflow at instruction " + index);
+                maxStack = Math.max(maxStack, depth);
+                int opcode = instruction.getOpcode();
+                if (instruction.isJump())
+                    reach(target(instruction), depth, worklist);
+                if (opcode == GOTO || opcode == RETURN || opcode == IRETURN || opcode == ARETURN)
+                    break;
+                index++;
+                if (index < code.size() && depthAt[index] >= 0) {
+                    reach(index, depth, worklist);
+                    break;
+                }
+                if (index < code.size())
+                    depthAt[index] = depth;
+            }
+        }
+        return maxStack;
+    }
+
+    private int target(Instruction jump) {
+        Integer index = labelIndex.get(jump.getLabel());
+        if (index == null)
+            throw new IllegalStateException("Jump to a label that is never marked");
+        return index;
+    }
+
+    private void reach(int index, int depth, ArrayDeque<Integer> worklist) {
+        if (index >= code.size())
+            return;
+        if (depthAt[index] < 0) {
+            depthAt[index] = depth;
+            worklist.push(index);
+        }
+        else if (depthAt[index] != depth)
+            throw new IllegalStateException("Inconsistent stack depth at instruction " + index);
+    }
+
+    private static int stackEffect(Instruction instruction) {
+        switch (instruction.getOpcode()) {
+            case Instruction.LABEL:
+            case GOTO:
+            case RETURN:
+            case CHECKCAST:
+                return 0;
+            case ACONST_NULL:
+            case LDC:
+            case LDC_W:
+            case ILOAD:
+            case ALOAD:
+            case DUP:
+            case DUP_X1:
+            case DUP_X2:
+            case NEW:
+                return 1;
+            case ISTORE:
+            case ASTORE:
+            case POP:
+            case IADD:
+            case ISUB:
+            case IMUL:
+            case IDIV:
+            case IFEQ:
+            case IFNE:
+            case IRETURN:
+            case ARETURN:
+                return -1;
+            case IF_ICMPNE:
+            case IF_ICMPGE:
+            case IF_ICMPLE:
+            case IF_ACMPNE:
+                return -2;
+            case GETSTATIC:
+                return typeSize(instruction.getDescriptor());
+            case PUTSTATIC:
+                return -typeSize(instruction.getDescriptor());
+            case GETFIELD:
+                return typeSize(instruction.getDescriptor()) - 1;
+            case PUTFIELD:
+                return -typeSize(instruction.getDescriptor()) - 1;
+            case INVOKEVIRTUAL:
+            case INVOKESPECIAL:
+                return invokeEffect(instruction.getDescriptor()) - 1;
+        }
+        throw new IllegalArgumentException("No stack effect known for opcode " + instruction.getOpcode());
+    }
+
+    private static int invokeEffect(String descriptor) {
+        String returnType = descriptor.substring(descriptor.indexOf(')') + 1);
+        return typeSize(returnType) - argumentsSize(descriptor);
+    }
+
+    private static int typeSize(String descriptor) {
+        char type = descriptor.charAt(0);
+        if (type == 'V')
+            return 0;
+        if (type == 'J' || type == 'D')
+            return 2;
+        return 1;
+    }
+
+    private static int argumentsSize(String descriptor) {
+        int size = 0;
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            char type = descriptor.charAt(i);
+            size += (type == 'J' || type == 'D') ? 2 : 1;
+            while (descriptor.charAt(i) == '[')
+                i++;
+            if (descriptor.charAt(i) == 'L')
+                i = descriptor.indexOf(';', i);
+            i++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,256 @@
+package main.cache;
+
+import main.ast.nodes.declaration.Declaration;
+import main.bytecode.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+public class CompilationCache {
+    private static final String FORMAT = "cmm-cache-1";
+    private static final int SIMPLE = 0, VAR = 1, LDC_INT = 2, LDC_STRING = 3, TYPE = 4, MEMBER = 5, JUMP = 6, MARK = 7;
+
+    private final File file;
+    private final Map<Declaration, String> fingerprints = new HashMap<>();
+    private final Map<String, byte[]> entries = new HashMap<>();
+    private final Map<String, byte[]> used = new HashMap<>();
+    private boolean changed = false;
+
+    public CompilationCache(File file) {
+        this.file = file;
+        if (!file.isFile())
+            return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (!in.readUTF().equals(FORMAT))
+                return;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                byte[] content = new byte[in.readInt()];
+                in.readFully(content);
+                entries.put(key, content);
+            }
+        } catch (IOException e) {
+            entries.clear();
+        }
+    }
+
+    public static String hash(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(FORMAT.getBytes(StandardCharsets.UTF_8));
+            for (String part : parts) {
+                digest.update((byte) 0);
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest())
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {//unreachable
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void fingerprint(Declaration declaration, String signatures, String source) {
+        fingerprints.put(declaration, hash(signatures, source));
+    }
+
+    public String getFingerprint(Declaration declaration) {
+        return fingerprints.get(declaration);
+    }
+
+    private synchronized byte[] get(String key) {
+        byte[] content = entries.get(key);
+        if (content != null)
+            used.put(key, content);
+        return content;
+    }
+
+    private synchronized void put(String key, byte[] content) {
+        entries.put(key, content);
+        used.put(key, content);
+        changed = true;
+    }
+
+    public boolean isUpToDate(Declaration declaration) {
+        String fingerprint = fingerprints.get(declaration);
+        return fingerprint != null && get(fingerprint + ".ir") != null;
+    }
+
+    public boolean restoreMembers(Declaration declaration, ClassModel target) {
+        if (!isUpToDate(declaration))
+            return false;
+        ArrayList<String[]> fields = new ArrayList<>();
+        ArrayList<MethodModel> methods = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(get(fingerprints.get(declaration) + ".ir")))) {
+            int fieldCount = in.readInt();
+            for (int i = 0; i < fieldCount; i++)
+                fields.add(new String[]{in.readUTF(), in.readUTF()});
+            int methodCount = in.readInt();
+            for (int i = 0; i < methodCount; i++) {
+                MethodModel method = new MethodModel(in.readInt(), in.readUTF(), in.readUTF());
+                readCode(in, method.getCode());
+                methods.add(method);
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        for (String[] field : fields)
+            target.addField(field[0], field[1]);
+        for (MethodModel method : methods)
+            target.addMethod(method);
+        return true;
+    }
+
+    public void storeMembers(Declaration declaration, ClassModel source) {
+        String fingerprint = fingerprints.get(declaration);
+        if (fingerprint == null)
+            return;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(source.getFields().size());
+            for (String[] field : source.getFields()) {
+                out.writeUTF(field[0]);
+                out.writeUTF(field[1]);
+            }
+            out.writeInt(source.getMethods().size());
+            for (MethodModel method : source.getMethods()) {
+                out.writeInt(method.getAccess());
+                out.writeUTF(method.getName());
+                out.writeUTF(method.getDescriptor());
+                writeCode(out, method.getCode());
+            }
+        } catch (IOException e) {//unreachable
+        }
+        put(fingerprint + ".ir", bytes.toByteArray());
+    }
+
+    public byte[] loadClass(String key) {
+        return get(key + ".class");
+    }
+
+    public void storeClass(String key, byte[] content) {
+        put(key + ".class", content);
+    }
+
+    public void save() throws IOException {
+        if (!changed && used.size() == entries.size())
+            return;
+        file.getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeUTF(FORMAT);
+            out.writeInt(used.size());
+            for (Map.Entry<String, byte[]> entry : used.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+    }
+
+    private void writeCode(DataOutputStream out, InstructionList code) throws IOException {
+        Map<Label, Integer> labels = new IdentityHashMap<>();
+        out.writeInt(code.size());
+        for (Instruction instruction : code) {
+            int opcode = instruction.getOpcode();
+            if (opcode == Instruction.LABEL) {
+                out.writeByte(MARK);
+                out.writeInt(labelIndex(labels, instruction.getLabel()));
+                continue;
+            }
+            if (instruction.isJump()) {
+                out.writeByte(JUMP);
+                out.writeInt(opcode);
+                out.writeInt(labelIndex(labels, instruction.getLabel()));
+            }
+            else if (instruction.isVar()) {
+                out.writeByte(VAR);
+                out.writeInt(opcode);
+                out.writeInt(instruction.getVar());
+            }
+            else if (instruction.getConstant() instanceof String) {
+                out.writeByte(LDC_STRING);
+                out.writeUTF((String) instruction.getConstant());
+            }
+            else if (instruction.getConstant() != null) {
+                out.writeByte(LDC_INT);
+                out.writeInt((Integer) instruction.getConstant());
+            }
+            else if (instruction.isMember()) {
+                out.writeByte(MEMBER);
+                out.writeInt(opcode);
+                out.writeUTF(instruction.getOwner());
+                out.writeUTF(instruction.getName());
+                out.writeUTF(instruction.getDescriptor());
+            }
+            else if (instruction.isType()) {
+                out.writeByte(TYPE);
+                out.writeInt(opcode);
+                out.writeUTF(instruction.getOwner());
+            }
+            else {
+                out.writeByte(SIMPLE);
+                out.writeInt(opcode);
+            }
+        }
+    }
+
+    private int labelIndex(Map<Label, Integer> labels, Label label) {
+        Integer index = labels.get(label);
+        if (index == null) {
+            index = labels.size();
+            labels.put(label, index);
+        }
+        return index;
+    }
+
+    private void readCode(DataInputStream in, InstructionList code) throws IOException {
+        ArrayList<Label> labels = new ArrayList<>();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            int kind = in.readByte();
+            switch (kind) {
+                case MARK:
+                    code.mark(label(labels, in.readInt()));
+                    break;
+                case JUMP:
+                    int opcode = in.readInt();
+                    code.emitJump(opcode, label(labels, in.readInt()));
+                    break;
+                case VAR:
+                    code.emitVar(in.readInt(), in.readInt());
+                    break;
+                case LDC_STRING:
+                    code.emitLdc(in.readUTF());
+                    break;
+                case LDC_INT:
+                    code.emitLdc(in.readInt());
+                    break;
+                case MEMBER:
+                    code.emitMethod(in.readInt(), in.readUTF(), in.readUTF(), in.readUTF());
+                    break;
+                case TYPE:
+                    code.emitType(in.readInt(), in.readUTF());
+                    break;
+                case SIMPLE:
+                    code.emit(in.readInt());
+                    break;
+                default:
+                    throw new IOException("Corrupt cache entry");
+            }
+        }
+    }
+
+    private Label label(ArrayList<Label> labels, int index) {
+        while (labels.size() <= index)
+            labels.add(new Label());
+        return labels.get(index);
+    }
+}
@@ -214,12 +214,14 @@ ifStatement returns[ConditionalStmt ifStatementRet]:
     cond = IF exp = expression
     {$ifStatementRet = new ConditionalStmt($exp.exprRet);
      $ifStatementRet.setLine($cond.getLine());}
-    (body1 = loopCondBody
-    {$ifStatementRet.setThenBody($body1.stmtRet);}
-    | body2 = body
-    {$ifStatementRet.setThenBody($body2.bodyRet);}
-    elsest = elseStatement
-    {$ifStatementRet.setElseBody($elsest.stmt);}
+    (b = blockStatement
+    {$ifStatementRet.setThenBody($b.blockStatementRet);}
+    (elsest1 = elseStatement
+    {$ifStatementRet.setElseBody($elsest1.stmt);})?
+    | NEWLINE+ s = singleStatement
+    {$ifStatementRet.setThenBody($s.singleStatementRet);}
+    ((SEMICOLON)? elsest2 = elseStatement
+    {$ifStatementRet.setElseBody($elsest2.stmt);})?
     );
 
 
@@ -0,0 +1,258 @@
+package main.input;
+
+import parsers.CmmLexer;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+
+import java.util.*;
+
+// Produces exactly the tokens CmmLexer would, including its positions, skipped input and recognition errors.
+public class CmmTokenSource implements TokenSource {
+    private static final int TABLE_SIZE = 64;
+    private static final String[] keywords = new String[TABLE_SIZE];
+    private static final int[] keywordTypes = new int[TABLE_SIZE];
+    private static final int seed;
+
+    static {
+        Map<String, Integer> words = new LinkedHashMap<>();
+        for (int type = 1; type <= CmmLexer.VOCABULARY.getMaxTokenType(); type++) {
+            String literal = CmmLexer.VOCABULARY.getLiteralName(type);
+            if (literal != null && literal.matches("'[A-Za-z_][A-Za-z0-9_]*'"))
+                words.put(literal.substring(1, literal.length() - 1), type);
+        }
+        seed = findSeed(words.keySet());
+        for (Map.Entry<String, Integer> word : words.entrySet()) {
+            int slot = hash(seed, word.getKey());
+            keywords[slot] = word.getKey();
+            keywordTypes[slot] = word.getValue();
+        }
+    }
+
+    private final CharStream input;
+    private final Pair<TokenSource, CharStream> source;
+    private TokenFactory<?> factory = CommonTokenFactory.DEFAULT;
+    private final List<ANTLRErrorListener> listeners = new ArrayList<>(Collections.singletonList(ConsoleErrorListener.INSTANCE));
+    private int line = 1;
+    private int charPositionInLine = 0;
+    private int tokenStart;
+    private int tokenLine;
+    private int tokenCharPositionInLine;
+    private char[] text = new char[64];
+
+    public CmmTokenSource(CharStream input) {
+        this.input = input;
+        this.source = new Pair<>(this, input);
+    }
+
+    private static int hash(int seed, int first, int last, int length) {
+        return (first * seed + last + length) & (TABLE_SIZE - 1);
+    }
+
+    private static int hash(int seed, String keyword) {
+        return hash(seed, keyword.charAt(0), keyword.charAt(keyword.length() - 1), keyword.length());
+    }
+
+    private static int findSeed(Set<String> words) {
+        for (int candidate = 1; candidate <= 1 << 16; candidate++) {
+            boolean[] used = new boolean[TABLE_SIZE];
+            boolean perfect = true;
+            for (String keyword : words) {
+                int slot = hash(candidate, keyword);
+                perfect &= !used[slot];
+                used[slot] = true;
+            }
+            if (perfect)
+                return candidate;
+        }
+        throw new IllegalStateException("No perfect hash for the keyword table");
+    }
+
+    private static boolean isIdentifierStart(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdentifierPart(int c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9');
+    }
+
+    public void addErrorListener(ANTLRErrorListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeErrorListeners() {
+        listeners.clear();
+    }
+
+    private void consume(int c) {
+        if (c == '\n') {
+            line++;
+            charPositionInLine = 0;
+        }
+        else
+            charPositionInLine++;
+        input.consume();
+    }
+
+    private Token emit(int type, int marker) {
+        Token token = factory.create(source, type, null, Token.DEFAULT_CHANNEL, tokenStart, input.index() - 1, tokenLine, tokenCharPositionInLine);
+        input.release(marker);
+        return token;
+    }
+
+    private int identifierType(int length) {
+        int slot = hash(seed, text[0], text[length - 1], length);
+        String keyword = keywords[slot];
+        if (keyword == null || keyword.length() != length)
+            return CmmLexer.IDENTIFIER;
+        for (int i = 0; i < length; i++)
+            if (keyword.charAt(i) != text[i])
+                return CmmLexer.IDENTIFIER;
+        return keywordTypes[slot];
+    }
+
+    private int identifier(int c) {
+        int length = 0;
+        do {
+            if (length == text.length)
+                text = Arrays.copyOf(text, length * 2);
+            text[length++] = (char) c;
+            consume(c);
+            c = input.LA(1);
+        } while (isIdentifierPart(c));
+        return identifierType(length);
+    }
+
+    private boolean comment() {
+        int index = input.index();
+        int savedLine = line;
+        int savedCharPositionInLine = charPositionInLine;
+        consume('*');
+        for (int c = input.LA(1); c != IntStream.EOF; c = input.LA(1)) {
+            consume(c);
+            if (c == '*' && input.LA(1) == '/') {
+                consume('/');
+                return true;
+            }
+        }
+        input.seek(index);
+        line = savedLine;
+        charPositionInLine = savedCharPositionInLine;
+        return false;
+    }
+
+    private void recognitionError() {
+        String display = input.getText(Interval.of(tokenStart, input.index()))
+                .replace("\n", "\\n").replace("\t", "\\t").replace("\r", "\\r");
+        for (ANTLRErrorListener listener : listeners)
+            listener.syntaxError(null, null, tokenLine, tokenCharPositionInLine, "token recognition error at: '" + display + "'", null);
+    }
+
+    private int operator(int c) {
+        switch (c) {
+            case '+': return CmmLexer.PLUS;
+            case '*': return CmmLexer.MULT;
+            case '>': return CmmLexer.GREATER_THAN;
+            case '<': return CmmLexer.LESS_THAN;
+            case '&': return CmmLexer.AND;
+            case '|': return CmmLexer.OR;
+            case '~': return CmmLexer.NOT;
+            case '#': return CmmLexer.SHARP;
+            case '(': return CmmLexer.LPAR;
+            case ')': return CmmLexer.RPAR;
+            case '[': return CmmLexer.LBRACK;
+            case ']': return CmmLexer.RBRACK;
+            case ',': return CmmLexer.COMMA;
+            case '.': return CmmLexer.DOT;
+            case ';': return CmmLexer.SEMICOLON;
+            case '\n': return CmmLexer.NEWLINE;
+            default: return Token.INVALID_TYPE;
+        }
+    }
+
+    @Override
+    public Token nextToken() {
+        while (true) {
+            int marker = input.mark();
+            tokenStart = input.index();
+            tokenLine = line;
+            tokenCharPositionInLine = charPositionInLine;
+            int c = input.LA(1);
+            if (c == IntStream.EOF)
+                return emit(Token.EOF, marker);
+            if (isIdentifierStart(c))
+                return emit(identifier(c), marker);
+            if (c >= '0' && c <= '9') {
+                consume(c);
+                if (c != '0')
+                    for (c = input.LA(1); c >= '0' && c <= '9'; c = input.LA(1))
+                        consume(c);
+                return emit(CmmLexer.INT_VALUE, marker);
+            }
+            if (c == ' ' || c == '\t' || c == '\r') {
+                consume(c);
+                input.release(marker);
+                continue;
+            }
+            int type = operator(c);
+            if (type != Token.INVALID_TYPE) {
+                consume(c);
+                return emit(type, marker);
+            }
+            switch (c) {
+                case '=':
+                    consume(c);
+                    if (input.LA(1) != '=')
+                        return emit(CmmLexer.ASSIGN, marker);
+                    consume('=');
+                    return emit(CmmLexer.EQUAL, marker);
+                case '-':
+                    consume(c);
+                    if (input.LA(1) != '>')
+                        return emit(CmmLexer.MINUS, marker);
+                    consume('>');
+                    return emit(CmmLexer.ARROW, marker);
+                case '/':
+                    consume(c);
+                    if (input.LA(1) != '*' || !comment())
+                        return emit(CmmLexer.DIVIDE, marker);
+                    input.release(marker);
+                    continue;
+                default:
+                    recognitionError();
+                    consume(c);
+                    input.release(marker);
+            }
+        }
+    }
+
+    @Override
+    public int getLine() {
+        return line;
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return charPositionInLine;
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return input;
+    }
+
+    @Override
+    public String getSourceName() {
+        return input.getSourceName();
+    }
+
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return factory;
+    }
+}
@@ -0,0 +1,130 @@
+package main.input;
+
+import main.benchmark.SyntheticPrograms;
+import parsers.CmmLexer;
+import org.antlr.v4.runtime.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Differential check of CmmTokenSource against the generated CmmLexer. Both lex the samples, a generated
+// program and seeded random inputs (token soups with comments, non-ASCII text and malformed UTF-8) through
+// every char stream the compiler uses; the type, text, indexes, line and column of every token and every
+// reported error must be the same. Throws if any input differs.
+// Usage: CmmTokenSourceCheck [sample directory=samples] [random inputs=50] [seed=1]
+public class CmmTokenSourceCheck {
+    private static final String[] FRAGMENTS = {
+            "main", "begin", "end", "struct", "fptr", "list", "int", "bool", "void", "return", "if", "else",
+            "while", "do", "true", "false", "display", "append", "size", "get", "set", "var", "x", "_y1", "mainly",
+            "0", "7", "0123", "42", "+", "-", "*", "/", "=", "==", "->", ">", "<", "&", "|", "~", "#", "(", ")",
+            "[", "]", ",", ".", ";", " ", "  ", "\t", "\r", "\n", "\n", "/*", "*/", "/* note */", "/* a\nb */",
+            "@", "$", "!", "\"", "'", "é", "日本", "😀"
+    };
+
+    private static List<String> tokens(TokenSource tokenSource) {
+        List<String> errors = new ArrayList<>();
+        ANTLRErrorListener listener = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine,
+                                    String msg, RecognitionException e) {
+                errors.add("error " + line + ":" + charPositionInLine + " " + msg);
+            }
+        };
+        if (tokenSource instanceof CmmLexer) {
+            ((CmmLexer) tokenSource).removeErrorListeners();
+            ((CmmLexer) tokenSource).addErrorListener(listener);
+        }
+        else {
+            ((CmmTokenSource) tokenSource).removeErrorListeners();
+            ((CmmTokenSource) tokenSource).addErrorListener(listener);
+        }
+        tokenSource.setTokenFactory(new CommonTokenFactory(true));
+        List<String> tokens = new ArrayList<>();
+        Token token;
+        do {
+            token = tokenSource.nextToken();
+            tokens.add(token.getType() + " '" + token.getText() + "' " + token.getStartIndex() + "-" + token.getStopIndex()
+                    + " " + token.getLine() + ":" + token.getCharPositionInLine() + " " + token.getChannel());
+        } while (token.getType() != Token.EOF);
+        tokens.addAll(errors);
+        return tokens;
+    }
+
+    private static CharStream open(Path file, int kind) throws IOException {
+        switch (kind) {
+            case 0:
+                return CharStreams.fromPath(file);
+            case 1:
+                return MappedCharStream.fromFileName(file.toString());
+            default:
+                return new UnbufferedCharStream(Files.newInputStream(file), 64, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static boolean same(String name, Path file) throws IOException {
+        String[] streams = {"CharStreams", "MappedCharStream", "UnbufferedCharStream"};
+        boolean same = true;
+        for (int kind = 0; kind < streams.length; kind++) {
+            List<String> expected = tokens(new CmmLexer(open(file, kind)));
+            List<String> actual = tokens(new CmmTokenSource(open(file, kind)));
+            if (expected.equals(actual))
+                continue;
+            same = false;
+            int i = 0;
+            while (i < Math.min(expected.size(), actual.size()) && expected.get(i).equals(actual.get(i)))
+                i++;
+            System.out.println("DIFF " + name + " on " + streams[kind] + " at entry " + i + ":");
+            System.out.println("  CmmLexer:       " + (i < expected.size() ? expected.get(i) : "<none>"));
+            System.out.println("  CmmTokenSource: " + (i < actual.size() ? actual.get(i) : "<none>"));
+        }
+        return same;
+    }
+
+    private static byte[] randomInput(Random random) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int length = 1 + random.nextInt(2000);
+        for (int i = 0; i < length; i++) {
+            if (random.nextInt(40) == 0)
+                out.write(0x80 + random.nextInt(0x80));
+            else {
+                byte[] fragment = FRAGMENTS[random.nextInt(FRAGMENTS.length)].getBytes(StandardCharsets.UTF_8);
+                out.write(fragment, 0, fragment.length);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static void main(String[] args) throws IOException {
+        File samples = new File(args.length > 0 ? args[0] : "samples");
+        int randomInputs = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        Random random = new Random(args.length > 2 ? Long.parseLong(args[2]) : 1);
+
+        Map<String, byte[]> inputs = new LinkedHashMap<>();
+        File[] files = samples.listFiles((dir, name) -> name.endsWith(".cmm"));
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files)
+                inputs.put(file.getName(), Files.readAllBytes(file.toPath()));
+        }
+        inputs.put("1500 functions", SyntheticPrograms.functions(1500).getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < randomInputs; i++)
+            inputs.put("random " + i, randomInput(random));
+
+        int differing = 0;
+        Path file = Files.createTempFile("cmm-lexer-", ".cmm");
+        try {
+            for (Map.Entry<String, byte[]> input : inputs.entrySet()) {
+                Files.write(file, input.getValue());
+                if (!same(input.getKey(), file))
+                    differing++;
+            }
+        } finally {
+            Files.delete(file);
+        }
+        System.out.println(inputs.size() + " inputs, " + differing + " differing");
+        if (differing > 0)
+            throw new IllegalStateException(differing + " inputs lex differently");
+    }
+}
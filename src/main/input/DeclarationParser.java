@@ -0,0 +1,206 @@
+package main.input;
+
+import main.ast.nodes.Program;
+import parsers.CmmParser;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Splits a program at its top-level declarations and parses runs of them on the fork-join pool.
+// parse() returns false whenever the split or a piece does not parse cleanly; the caller then parses
+// the whole program the usual way, which also reports any syntax errors.
+public class DeclarationParser {
+    private static final int STRUCT = 0, FUNCTION = 1, MAIN = 2;
+    private static final int MIN_CHUNK_TOKENS = 1 << 13;
+
+    private final BufferedTokenStream tokens;
+    private final ArrayList<Integer> starts = new ArrayList<>();
+    private final ArrayList<Integer> kinds = new ArrayList<>();
+    private int end;
+
+    private Program program;
+    private final List<CmmParser.StructDeclarationContext> structs = new ArrayList<>();
+    private final List<CmmParser.FunctionDeclarationContext> functions = new ArrayList<>();
+    private CmmParser.MainContext main;
+
+    private static class Chunk {
+        final List<CmmParser.StructDeclarationContext> structs = new ArrayList<>();
+        final List<CmmParser.FunctionDeclarationContext> functions = new ArrayList<>();
+        CmmParser.MainContext main;
+    }
+
+    public DeclarationParser(BufferedTokenStream tokens) {
+        this.tokens = tokens;
+    }
+
+    public Program getProgram() {
+        return program;
+    }
+
+    public List<CmmParser.StructDeclarationContext> getStructs() {
+        return structs;
+    }
+
+    public List<CmmParser.FunctionDeclarationContext> getFunctions() {
+        return functions;
+    }
+
+    public CmmParser.MainContext getMain() {
+        return main;
+    }
+
+    private int type(int index) {
+        return index < tokens.size() ? tokens.get(index).getType() : Token.EOF;
+    }
+
+    private int skipType(int index) {
+        switch (type(index)) {
+            case CmmParser.INT:
+            case CmmParser.BOOL:
+                return index + 1;
+            case CmmParser.LIST:
+                return type(index + 1) == CmmParser.SHARP ? skipType(index + 2) : -1;
+            case CmmParser.STRUCT:
+                return type(index + 1) == CmmParser.IDENTIFIER ? index + 2 : -1;
+            case CmmParser.FPTR:
+                int depth = 0;
+                for (int i = index + 1; ; i++) {
+                    int type = type(i);
+                    if (type == CmmParser.LESS_THAN)
+                        depth++;
+                    else if (type == CmmParser.GREATER_THAN && --depth == 0)
+                        return i + 1;
+                    else if (depth == 0 || type == CmmParser.NEWLINE || type == Token.EOF)
+                        return -1;
+                }
+            default:
+                return -1;
+        }
+    }
+
+    private int declarationAt(int index) {
+        switch (type(index)) {
+            case CmmParser.MAIN:
+                return type(index + 1) == CmmParser.LPAR ? MAIN : -1;
+            case CmmParser.VOID:
+                return type(index + 1) == CmmParser.IDENTIFIER && type(index + 2) == CmmParser.LPAR ? FUNCTION : -1;
+            case CmmParser.STRUCT:
+                if (type(index + 1) == CmmParser.IDENTIFIER && (type(index + 2) == CmmParser.BEGIN || type(index + 2) == CmmParser.NEWLINE))
+                    return STRUCT;
+        }
+        int next = skipType(index);
+        return next > 0 && type(next) == CmmParser.IDENTIFIER && type(next + 1) == CmmParser.LPAR ? FUNCTION : -1;
+    }
+
+    private boolean scan() {
+        tokens.fill();
+        int size = tokens.size() - 1;
+        int i = 0;
+        while (i < size && type(i) == CmmParser.NEWLINE)
+            i++;
+        int depth = 0;
+        boolean structStatement = false;
+        for (; i < size; i++) {
+            int type = type(i);
+            if (depth == 0 && (i == 0 || type(i - 1) == CmmParser.NEWLINE)) {
+                int kind = structStatement ? -1 : declarationAt(i);
+                if (kind >= 0) {
+                    starts.add(i);
+                    kinds.add(kind);
+                }
+                else if (starts.isEmpty())
+                    return false;
+                structStatement = kind == STRUCT && type(i + 2) == CmmParser.NEWLINE;
+            }
+            if (type == CmmParser.BEGIN)
+                depth++;
+            else if (type == CmmParser.END)
+                depth--;
+        }
+        end = size;
+        while (end > 0 && type(end - 1) == CmmParser.NEWLINE)
+            end--;
+        int previous = STRUCT;
+        for (int kind : kinds) {
+            if (kind < previous || previous == MAIN)
+                return false;
+            previous = kind;
+        }
+        return previous == MAIN;
+    }
+
+    private int endOf(int declaration) {
+        return declaration + 1 < starts.size() ? starts.get(declaration + 1) : end;
+    }
+
+    private Chunk parseChunk(int first, int last) {
+        CmmParser cmmParser = new CmmParser(new TokenRange(tokens, starts.get(first), endOf(last - 1)));
+        cmmParser.setBuildParseTree(false);
+        cmmParser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        cmmParser.removeErrorListeners();
+        cmmParser.setErrorHandler(new BailErrorStrategy());
+        Chunk chunk = new Chunk();
+        try {
+            for (int k = first; k < last; k++) {
+                switch (kinds.get(k)) {
+                    case STRUCT:
+                        chunk.structs.add(cmmParser.structDeclaration());
+                        break;
+                    case FUNCTION:
+                        chunk.functions.add(cmmParser.functionDeclaration());
+                        break;
+                    default:
+                        chunk.main = cmmParser.main();
+                }
+                if (cmmParser.getInputStream().index() != endOf(k))
+                    return null;
+            }
+        } catch (ParseCancellationException e) {
+            return null;
+        }
+        return chunk;
+    }
+
+    public boolean parse() {
+        if (!scan())
+            return false;
+        int chunkTokens = Math.max(MIN_CHUNK_TOKENS, end / (4 * ForkJoinPool.getCommonPoolParallelism()));
+        ArrayList<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+        int first = 0;
+        for (int k = 1; k <= starts.size(); k++) {
+            if (k < starts.size() && starts.get(k) - starts.get(first) < chunkTokens)
+                continue;
+            int from = first, to = k;
+            tasks.add(ForkJoinTask.adapt(() -> parseChunk(from, to)));
+            first = k;
+        }
+        if (tasks.size() > 1)
+            for (ForkJoinTask<Chunk> task : tasks)
+                task.fork();
+        program = new Program();
+        program.setLine(1);
+        for (ForkJoinTask<Chunk> task : tasks) {
+            Chunk chunk = tasks.size() > 1 ? task.join() : task.invoke();
+            if (chunk == null) {
+                for (ForkJoinTask<Chunk> pending : tasks)
+                    pending.cancel(false);
+                return false;
+            }
+            for (CmmParser.StructDeclarationContext struct : chunk.structs)
+                program.addStruct(struct.structDeclarationRet);
+            for (CmmParser.FunctionDeclarationContext function : chunk.functions)
+                program.addFunction(function.functionDeclarationRet);
+            if (chunk.main != null)
+                program.setMain(chunk.main.mainRet);
+            structs.addAll(chunk.structs);
+            functions.addAll(chunk.functions);
+            if (chunk.main != null)
+                main = chunk.main;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,179 @@
+package main.input;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Indexes are byte offsets into the UTF-8 source, so ASCII input is read straight from the mapping, and the
+// source must be smaller than 2 GB. An interval ends either on the last byte of a code point, as a token's stop
+// index does, or on the first byte of one, as the lexer's error text does; getText widens the latter to the
+// end of that code point.
+public class MappedCharStream implements CharStream {
+    private static final int REPLACEMENT = 0xfffd;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final String name;
+    private int position = 0;
+
+    public MappedCharStream(ByteBuffer buffer, String name) {
+        this.buffer = buffer;
+        this.size = buffer.limit();
+        this.name = name;
+    }
+
+    public static MappedCharStream fromFileName(String fileName) throws IOException {
+        Path path = Paths.get(fileName);
+        if (!Files.isRegularFile(path))
+            throw new IOException(fileName + " is not a regular file");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException(fileName + " is too large to map");
+            return new MappedCharStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), fileName);
+        }
+    }
+
+    private static int expectedWidth(int lead) {
+        if (lead < 0xc2)
+            return 1;
+        if (lead < 0xe0)
+            return 2;
+        if (lead < 0xf0)
+            return 3;
+        if (lead < 0xf5)
+            return 4;
+        return 1;
+    }
+
+    private static boolean continues(int lead, int index, int b) {
+        if (index > 1)
+            return b >= 0x80 && b <= 0xbf;
+        switch (lead) {
+            case 0xe0:
+                return b >= 0xa0 && b <= 0xbf;
+            case 0xf0:
+                return b >= 0x90 && b <= 0xbf;
+            case 0xf4:
+                return b >= 0x80 && b <= 0x8f;
+            default:
+                return b >= 0x80 && b <= 0xbf;
+        }
+    }
+
+    private int width(int offset) {
+        int lead = buffer.get(offset) & 0xff;
+        int expected = expectedWidth(lead);
+        int width = 1;
+        while (width < expected && offset + width < size && continues(lead, width, buffer.get(offset + width) & 0xff))
+            width++;
+        return width;
+    }
+
+    private int decode(int offset) {
+        int lead = buffer.get(offset) & 0xff;
+        if (lead < 0x80)
+            return lead;
+        int expected = expectedWidth(lead);
+        if (expected == 1 || width(offset) != expected)
+            return REPLACEMENT;
+        int codePoint = lead & (0x7f >> expected);
+        for (int i = 1; i < expected; i++)
+            codePoint = (codePoint << 6) | (buffer.get(offset + i) & 0x3f);
+        return Character.isSurrogate((char) codePoint) ? REPLACEMENT : codePoint;
+    }
+
+    private int previous(int offset) {
+        int start = offset - 1;
+        while (start > 0 && offset - start < 4 && (buffer.get(start) & 0xc0) == 0x80)
+            start--;
+        return start + width(start) == offset ? start : offset - 1;
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i == 1) {
+            if (position >= size)
+                return IntStream.EOF;
+            byte b = buffer.get(position);
+            return b >= 0 ? b : decode(position);
+        }
+        if (i == 0)
+            return 0;
+        int offset = position;
+        if (i > 0) {
+            for (int k = 1; k < i && offset < size; k++)
+                offset += width(offset);
+            return offset < size ? decode(offset) : IntStream.EOF;
+        }
+        for (int k = 0; k > i; k--) {
+            if (offset == 0)
+                return IntStream.EOF;
+            offset = previous(offset);
+        }
+        return decode(offset);
+    }
+
+    @Override
+    public void consume() {
+        if (position >= size)
+            throw new IllegalStateException("cannot consume EOF");
+        position += buffer.get(position) >= 0 ? 1 : width(position);
+    }
+
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return position;
+    }
+
+    @Override
+    public void seek(int index) {
+        position = Math.min(index, size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return name;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = Math.max(interval.a, 0);
+        int stop = Math.min(interval.b, size - 1);
+        if (start > stop)
+            return "";
+        stop = Math.min(stop + width(stop) - 1, size - 1);
+        byte[] bytes = new byte[stop - start + 1];
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(start);
+        slice.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return getText(Interval.of(0, size - 1));
+    }
+}
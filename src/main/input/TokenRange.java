@@ -0,0 +1,118 @@
+package main.input;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+
+// A read-only view of tokens [from, to) of a filled stream that ends in a synthetic EOF.
+// Indexes stay those of the whole stream, so contexts parsed from a range can be used with it.
+public class TokenRange implements TokenStream {
+    private final BufferedTokenStream tokens;
+    private final int from;
+    private final int to;
+    private final Token eof;
+    private int p;
+
+    public TokenRange(BufferedTokenStream tokens, int from, int to) {
+        this.tokens = tokens;
+        this.from = from;
+        this.to = to;
+        this.p = from;
+        Token last = tokens.get(to - 1);
+        CommonToken eof = new CommonToken(new Pair<>(last.getTokenSource(), last.getInputStream()),
+                Token.EOF, Token.DEFAULT_CHANNEL, last.getStopIndex() + 1, last.getStopIndex());
+        eof.setLine(last.getLine());
+        eof.setCharPositionInLine(last.getCharPositionInLine() + 1);
+        eof.setTokenIndex(to);
+        eof.setText("<EOF>");
+        this.eof = eof;
+    }
+
+    @Override
+    public Token LT(int k) {
+        if (k == 0)
+            return null;
+        int i = k < 0 ? p + k : p + k - 1;
+        if (i < from)
+            return null;
+        return i < to ? tokens.get(i) : eof;
+    }
+
+    @Override
+    public int LA(int i) {
+        Token token = LT(i);
+        return token == null ? Token.INVALID_TYPE : token.getType();
+    }
+
+    @Override
+    public void consume() {
+        if (p >= to)
+            throw new IllegalStateException("cannot consume EOF");
+        p++;
+    }
+
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return p;
+    }
+
+    @Override
+    public void seek(int index) {
+        p = Math.max(from, Math.min(index, to));
+    }
+
+    @Override
+    public int size() {
+        return to + 1;
+    }
+
+    @Override
+    public Token get(int index) {
+        return index == to ? eof : tokens.get(index);
+    }
+
+    @Override
+    public TokenSource getTokenSource() {
+        return tokens.getTokenSource();
+    }
+
+    @Override
+    public String getSourceName() {
+        return tokens.getSourceName();
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = Math.max(interval.a, from);
+        int stop = Math.min(interval.b, to - 1);
+        if (start > stop)
+            return "";
+        return tokens.getText(Interval.of(start, stop));
+    }
+
+    @Override
+    public String getText() {
+        return getText(Interval.of(from, to - 1));
+    }
+
+    @Override
+    public String getText(RuleContext context) {
+        return getText(context.getSourceInterval());
+    }
+
+    @Override
+    public String getText(Token start, Token stop) {
+        if (start == null || stop == null)
+            return "";
+        return getText(Interval.of(start.getTokenIndex(), stop.getTokenIndex()));
+    }
+}
@@ -0,0 +1,34 @@
+package main.runtime;
+
+import java.util.*;
+
+public class ProgramClassLoader extends ClassLoader {
+    private final Map<String, byte[]> classes;
+
+    public ProgramClassLoader(Map<String, byte[]> classes) {
+        super(ProgramClassLoader.class.getClassLoader());
+        this.classes = classes;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!classes.containsKey(name))
+            return super.loadClass(name, resolve);
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded == null)
+                loaded = findClass(name);
+            if (resolve)
+                resolveClass(loaded);
+            return loaded;
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        byte[] classBytes = classes.get(name);
+        if (classBytes == null)
+            throw new ClassNotFoundException(name);
+        return defineClass(name, classBytes, 0, classBytes.length);
+    }
+}
@@ -0,0 +1,81 @@
+package main.runtime;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.*;
+
+// System.out is process-wide, so it is replaced once by a stream that writes to the output of the program
+// running on the calling thread, and to the original System.out on every other thread.
+public class ProgramRunner {
+    private static final ThreadLocal<PrintStream> programOut = new ThreadLocal<>();
+    private static boolean routed = false;
+    private boolean failed = false;
+
+    private static synchronized void routeSystemOut() {
+        if (routed)
+            return;
+        PrintStream hostOut = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            private OutputStream target() {
+                PrintStream out = programOut.get();
+                return out != null ? out : hostOut;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                target().write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                target().write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                target().flush();
+            }
+        }, true));
+        routed = true;
+    }
+
+    public static Map<String, byte[]> readClassFiles(File directory) throws IOException {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".class"));
+        if (files == null)
+            return classes;
+        for (File file : files) {
+            String className = file.getName().substring(0, file.getName().length() - ".class".length());
+            try (InputStream in = new FileInputStream(file)) {
+                classes.put(className, in.readAllBytes());
+            }
+        }
+        return classes;
+    }
+
+    public String run(Map<String, byte[]> classes) {
+        routeSystemOut();
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        programOut.set(new PrintStream(captured, true));
+        try {
+            Class<?> mainClass = new ProgramClassLoader(classes).loadClass("Main");
+            Method main = mainClass.getMethod("main", String[].class);
+            main.setAccessible(true);
+            main.invoke(null, (Object) new String[0]);
+        } catch (InvocationTargetException e) {
+            failed = true;
+            e.getCause().printStackTrace();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            failed = true;
+            e.printStackTrace();
+        } finally {
+            System.out.flush();
+            programOut.remove();
+        }
+        return captured.toString();
+    }
+
+    public boolean hasFailed() {
+        return failed;
+    }
+}
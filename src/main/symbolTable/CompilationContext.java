@@ -0,0 +1,38 @@
+package main.symbolTable;
+
+import main.symbolTable.utils.Stack;
+
+import java.io.File;
+
+public class CompilationContext {
+    private final SymbolTable root = new SymbolTable();
+    private SymbolTable top;
+    private final Stack<SymbolTable> stack = new Stack<>();
+    private final File outputDirectory;
+
+    public CompilationContext(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public SymbolTable getRoot() {
+        return root;
+    }
+
+    public SymbolTable getTop() {
+        return top;
+    }
+
+    public void push(SymbolTable symbolTable) {
+        if (top != null)
+            stack.push(top);
+        top = symbolTable;
+    }
+
+    public void pop() {
+        top = stack.pop();
+    }
+}
@@ -4,7 +4,6 @@ package main.symbolTable;
 import main.symbolTable.exceptions.ItemAlreadyExistsException;
 import main.symbolTable.exceptions.ItemNotFoundException;
 import main.symbolTable.items.SymbolTableItem;
-import main.symbolTable.utils.Stack;
 
 
 import java.util.HashMap;
@@ -16,24 +15,6 @@ import java.util.Set;
 
 public class SymbolTable {
 
-    //Start of static members
-
-    public static SymbolTable top;
-    public static SymbolTable root;
-    private static Stack<SymbolTable> stack = new Stack<>();
-
-    public static void push(SymbolTable symbolTable) {
-        if (top != null)
-            stack.push(top);
-        top = symbolTable;
-    }
-
-    public static void pop() {
-        top = stack.pop();
-    }
-
-    //End of static members
-
     public SymbolTable pre;
     private Map<String, SymbolTableItem> items;
 
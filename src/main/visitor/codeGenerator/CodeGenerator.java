@@ -1,146 +1,247 @@
 package main.visitor.codeGenerator;
 
+import main.assembler.JasminAssembler;
 import main.ast.nodes.*;
 import main.ast.nodes.declaration.*;
 import main.ast.nodes.declaration.struct.*;
 import main.ast.nodes.expression.*;
 import main.ast.nodes.expression.operators.*;
-import main.ast.nodes.expression.values.*;
 import main.ast.nodes.expression.values.primitive.*;
 import main.ast.nodes.statement.*;
 import main.ast.types.*;
 import main.ast.types.primitives.*;
+import main.bytecode.*;
+import main.cache.CompilationCache;
 import main.symbolTable.*;
 import main.symbolTable.exceptions.*;
 import main.symbolTable.items.FunctionSymbolTableItem;
-import main.symbolTable.items.StructSymbolTableItem;
 import main.visitor.Visitor;
-import main.visitor.type.ExpressionTypeChecker;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
-
-public class  CodeGenerator extends Visitor<String> {
-    ExpressionTypeChecker expressionTypeChecker = new ExpressionTypeChecker();
-    private String outputPath;
-    private FileWriter currentFile;
+import java.util.concurrent.ForkJoinTask;
+
+public class CodeGenerator extends Visitor<Void> implements Opcodes {
+    private static final String[] RUNTIME_CLASSES = {"List", "ListVector", "IntList", "BoolList", "Fptr"};
+    private final String outputPath;
+    private final boolean directBytecode;
+    private final ArrayList<ClassModel> classModels = new ArrayList<>();
+    private final Map<String, byte[]> classes = new LinkedHashMap<>();
+    private ClassModel currentClass;
+    private InstructionList currentMethod;
+    private CompilationCache cache;
+    private final Map<String, StringBuilder> classKeys = new HashMap<>();
+    private final Map<String, String> pendingClasses = new HashMap<>();
 
     ArrayList<VariableDeclaration> allvars = new ArrayList<>();
-    private ArrayList<String> scopeVars = new ArrayList<>();
     boolean structScope = false;
 
-    private FunctionDeclaration curFunc;
+    private SlotAllocator slots;
+
+    private final CompilationContext context;
+
+    public CodeGenerator(CompilationContext context, boolean directBytecode) {
+        this.context = context;
+        this.directBytecode = directBytecode;
+        this.outputPath = context.getOutputDirectory().getPath() + File.separator;
+    }
 
-    private int numofUsedTmp = 0;
-    private int numofUsedLabel = 0;
-    private String stackLimit = "128";
-    private String localLimit = "128";
-    private StructDeclaration currStruct;
-    private ArrayList<String> scopeallvars = new ArrayList<>();
+    public void setCache(CompilationCache cache) {
+        this.cache = cache;
+    }
 
+    public Map<String, byte[]> getClasses() {
+        return classes;
+    }
+
+    public Map<String, String> getPendingClasses() {
+        return pendingClasses;
+    }
 
     private void copyFile(String toBeCopied, String toBePasted) {
         try {
-            File readingFile = new File(toBeCopied);
-            File writingFile = new File(toBePasted);
-            InputStream readingFileStream = new FileInputStream(readingFile);
-            OutputStream writingFileStream = new FileOutputStream(writingFile);
-            byte[] buffer = new byte[1024];
-            int readLength;
-            while ((readLength = readingFileStream.read(buffer)) > 0)
-                writingFileStream.write(buffer, 0, readLength);
-            readingFileStream.close();
-            writingFileStream.close();
-        } catch (IOException e) {//unreachable
+            Files.copy(Paths.get(toBeCopied), Paths.get(toBePasted), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
     private void prepareOutputFolder() {
-        this.outputPath = "output/";
-        String jasminPath = "utilities/jarFiles/jasmin.jar";
-        String listClassPath = "utilities/codeGenerationUtilityClasses/List.j";
-        String fptrClassPath = "utilities/codeGenerationUtilityClasses/Fptr.j";
-        try{
-            File directory = new File(this.outputPath);
-            File[] files = directory.listFiles();
-            if(files != null)
-                for (File file : files)
-                    file.delete();
-            directory.mkdir();
+        File directory = context.getOutputDirectory();
+        File[] files = directory.listFiles();
+        if(files != null)
+            for (File file : files)
+                if (file.isFile() && !file.delete())
+                    throw new UncheckedIOException(new IOException("Cannot delete " + file));
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new UncheckedIOException(new IOException("Cannot create output directory " + directory));
+        if (!directBytecode) {
+            copyFile("utilities/jarFiles/jasmin.jar", this.outputPath + "jasmin.jar");
+            for (String runtimeClass : RUNTIME_CLASSES) {
+                String runtimePath = "utilities/codeGenerationUtilityClasses/" + runtimeClass + ".j";
+                if (cache == null || !writeCachedClass(runtimeClass, CompilationCache.hash(readFile(runtimePath))))
+                    copyFile(runtimePath, this.outputPath + runtimeClass + ".j");
+            }
         }
-        catch(SecurityException e) {//unreachable
+    }
 
+    private void writeFile(String name, byte[] content) {
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        try (FileChannel channel = FileChannel.open(Paths.get(this.outputPath + name),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        copyFile(jasminPath, this.outputPath + "jasmin.jar");
-        copyFile(listClassPath, this.outputPath + "List.j");
-        copyFile(fptrClassPath, this.outputPath + "Fptr.j");
     }
 
-    private void createFile(String name) {
+    private String readFile(String path) {
         try {
-            String path = this.outputPath + name + ".j";
-            File file = new File(path);
-            file.createNewFile();
-            this.currentFile = new FileWriter(path);
-        } catch (IOException e) {//never reached
+            return new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean writeCachedClass(String className, String key) {
+        byte[] content = cache.loadClass(key);
+        if (content == null) {
+            pendingClasses.put(className, key);
+            return false;
+        }
+        writeFile(className + ".class", content);
+        return true;
+    }
+
+    private void addRuntimeClasses() {
+        JasminAssembler assembler = new JasminAssembler();
+        String runtimePath = "utilities/codeGenerationUtilityClasses/";
+        for (String runtimeClass : RUNTIME_CLASSES) {
+            String source = readFile(runtimePath + runtimeClass + ".j");
+            String key = CompilationCache.hash(source);
+            byte[] content = cache == null ? null : cache.loadClass(key);
+            if (content == null) {
+                try {
+                    content = assembler.assemble(source, runtimeClass + ".j");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (cache != null)
+                    cache.storeClass(key, content);
+            }
+            classes.put(runtimeClass, content);
         }
     }
 
-    private void addCommand(String command) {
-        try {
-            command = String.join("\n\t\t", command.split("\n"));
-            if(command.startsWith("Label_"))
-                this.currentFile.write("\t" + command + "\n");
-            else if(command.startsWith("."))
-                this.currentFile.write(command + "\n");
-            else
-                this.currentFile.write("\t\t" + command + "\n");
-            this.currentFile.flush();
-        } catch (IOException e) {//unreachable
+    private String classKey(ClassModel classModel) {
+        String backend = directBytecode ? "direct" : "jasmin";
+        return CompilationCache.hash(backend, classModel.getName(), classKeys.get(classModel.getName()).toString());
+    }
 
+    private byte[] toByteArray(ClassModel classModel) {
+        if (cache == null)
+            return classModel.toByteArray();
+        String key = classKey(classModel);
+        byte[] content = cache.loadClass(key);
+        if (content == null) {
+            content = classModel.toByteArray();
+            cache.storeClass(key, content);
         }
+        return content;
     }
 
-    private void addStaticMainMethod() {
-        addCommand(".method public static main([Ljava/lang/String;)V");
-        addCommand(".limit stack 128");
-        addCommand(".limit locals 128");
-        addCommand("new Main");
-        addCommand("invokespecial Main/<init>()V");
-        addCommand("return");
-        addCommand(".end method");
+    private void writeClasses() {
+        if (directBytecode) {
+            addRuntimeClasses();
+            for (ClassModel classModel : classModels)
+                classes.put(classModel.getName(), toByteArray(classModel));
+            for (Map.Entry<String, byte[]> entry : classes.entrySet())
+                writeFile(entry.getKey() + ".class", entry.getValue());
+        }
+        else {
+            for (ClassModel classModel : classModels)
+                if (cache == null || !writeCachedClass(classModel.getName(), classKey(classModel)))
+                    writeFile(classModel.getName() + ".j", classModel.toJasmin().getBytes(StandardCharsets.UTF_8));
+        }
     }
 
-    private int slotOf(String identifier) {
-        int slotNum = 0;
-        if (curFunc != null){
-            for (VariableDeclaration arg: curFunc.getArgs()){
-                if (arg.getVarName().getName().equals(identifier))
-                    return slotNum + 1;
-                slotNum += 1;
-            }
-        }
-        for(VariableDeclaration var : allvars)
-        {
-            if(var.getVarName().getName().equals(identifier))
-                return slotNum + 1;
-            slotNum += 1;
+    private ClassModel generate(Declaration declaration, String className) {
+        ClassModel classModel = new ClassModel(className, "java/lang/Object");
+        if (cache != null && cache.restoreMembers(declaration, classModel))
+            return classModel;
+        CodeGenerator generator = new CodeGenerator(context, directBytecode);
+        generator.currentClass = classModel;
+        generator.structScope = declaration instanceof StructDeclaration;
+        declaration.accept(generator);
+        for (MethodModel method : classModel.getMethods()) {
+            method.getMaxStack();
+            method.getMaxLocals();
         }
+        if (cache != null)
+            cache.storeMembers(declaration, classModel);
+        return classModel;
+    }
 
-        if (identifier.equals("")) {
-            int temp =numofUsedTmp;
-            numofUsedTmp += 1;
-            return slotNum + temp + 1;
+    private ForkJoinTask<ClassModel> fork(Declaration declaration, String className) {
+        return ForkJoinTask.adapt(() -> generate(declaration, className)).fork();
+    }
+
+    private ClassModel merge(ForkJoinTask<ClassModel> task, Declaration declaration, ClassModel target) {
+        ClassModel generated = task.join();
+        if (target == null) {
+            target = generated;
+            classModels.add(target);
+        }
+        else {
+            for (MethodModel method : generated.getMethods())
+                target.addMethod(method);
         }
-        return 0;
+        if (cache != null)
+            classKeys.computeIfAbsent(target.getName(), name -> new StringBuilder()).append(cache.getFingerprint(declaration));
+        return target;
+    }
+
+    private void startMethod(int access, String name, String descriptor) {
+        currentMethod = currentClass.addMethod(access, name, descriptor).getCode();
+    }
+
+    private void addStaticMainMethod() {
+        startMethod(ACC_PUBLIC | ACC_STATIC, "main", "([Ljava/lang/String;)V");
+        currentMethod.emitType(NEW, "Main");
+        currentMethod.emitMethod(INVOKESPECIAL, "Main", "<init>", "()V");
+        currentMethod.emit(RETURN);
+    }
+
+    private int slotOf(String identifier) {
+        return slots.slotOf(identifier);
+    }
+
+    private Type typeOf(Expression expression) {
+        Type type = expression.getType();
+        if (type == null)
+            throw new IllegalStateException("Expression at line " + expression.getLine() + " was not type checked");
+        return type;
     }
 
-    private  String castType(Type t){
+    private String castType(Type t){
         if (t instanceof IntType)
             return "java/lang/Integer";
         if (t instanceof BoolType)
             return "java/lang/Boolean";
-        if (t instanceof ListType)
+        if (t instanceof ListType) {
+            Type elementType = ((ListType) t).getType();
+            if (elementType instanceof IntType)
+                return "IntList";
+            if (elementType instanceof BoolType)
+                return "BoolList";
+            if (elementType instanceof ListType)
+                return "ListVector";
             return "List";
+        }
         if (t instanceof FptrType)
             return "Fptr";
         if (t instanceof StructType)
@@ -148,744 +249,513 @@ public class  CodeGenerator extends Visitor<String> {
         return null;
     }
 
-
-    private String makeTypeSignature(Type t) {
-        if (t instanceof IntType)
-            return "java/lang/Integer";
-        if (t instanceof BoolType)
-            return "java/lang/Boolean";
-        if (t instanceof ListType)
-            return "List";
-        if (t instanceof FptrType)
-            return "Fptr";
-        if (t instanceof StructType)
-            return ((StructType) t).getStructName().getName();
+    private String descriptorOf(Type t) {
         if (t instanceof VoidType)
             return "V";
-        return null;
-    }
-    private String convertNonPremitive(Type type) {
-        String commands = "";
-        if(type instanceof IntType)
-            commands += "invokestatic java/lang/Integer/valueOf(I)Ljava/lang/Integer;\n";
-        if(type instanceof BoolType)
-            commands += "invokestatic java/lang/Boolean/valueOf(Z)Ljava/lang/Boolean;\n";
-        return commands;
+        if (t instanceof IntType)
+            return "I";
+        if (t instanceof BoolType)
+            return "Z";
+        return "L" + castType(t) + ";";
     }
 
-    private String convertPremitive(Type type){
-        String commands = "";
-        if(type instanceof IntType)
-            commands += "invokevirtual java/lang/Integer/intValue()I\n";
-        if(type instanceof BoolType)
-            commands += "invokevirtual java/lang/Boolean/booleanValue()Z\n";
-        return commands;
+    private String methodDescriptor(ArrayList<Type> argTypes, Type returnType) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (Type argType : argTypes)
+            descriptor.append(descriptorOf(argType));
+        return descriptor.append(")").append(descriptorOf(returnType)).toString();
     }
 
-
-    private void getStructVars(StructDeclaration structDeclaration){
-        String structName = structDeclaration.getStructName().getName();
-        for (VariableDeclaration var : allvars) {
-            String varName = var.getVarName().getName();
-            Type varType = var.getVarType();
-            addCommand("aload 0");
-            if (varType instanceof FptrType) {
-                addCommand("aconst_null");
-                addCommand("putfield " + structName + "/" + varName + " L" + castType(varType) + ";\n");
-            }
-            else if (varType instanceof StructType) {
-                String VarStructName = ((StructType)varType).getStructName().getName();
-                addCommand("new " + VarStructName);
-                addCommand("dup");
-                addCommand("invokespecial " + VarStructName + "/<init>()V");
-                addCommand("putfield " + structName + "/" + varName + " L" + castType(varType) + ";\n");
-            }
-            else if (varType instanceof IntType || varType instanceof BoolType) {
-                addCommand("ldc 0");
-                addCommand(convertNonPremitive(varType));
-                addCommand("putfield " + structName + "/" + varName + " L" + castType(varType) + ";\n");
-            }
-            else {
-                addCommand("new List");
-                addCommand("dup");
-                addCommand("new java/util/ArrayList");
-                addCommand("dup");
-                addCommand("invokespecial java/util/ArrayList/<init>()V");
-                addCommand("invokespecial List/<init>(Ljava/util/ArrayList;)V");
-                addCommand("putfield " + structName + "/" + varName + " L" + castType(varType) + ";\n");
-            }
+    private FunctionSymbolTableItem functionOf(Expression expression) {
+        if (!(expression instanceof Identifier))
+            return null;
+        try {
+            String functionKey = FunctionSymbolTableItem.START_KEY + ((Identifier) expression).getName();
+            return (FunctionSymbolTableItem) context.getRoot().getItem(functionKey);
+        } catch (ItemNotFoundException e) {
+            return null;
         }
     }
 
-    private String getFreshLabel(){
-        String label = "Label_";
-        label += numofUsedLabel;
-        numofUsedLabel++;
-        return label;
+    private boolean isPrimitive(Type t) {
+        return t instanceof IntType || t instanceof BoolType;
     }
 
-    @Override
-    public String visit(Program program) {
-        prepareOutputFolder();
+    private int loadOpcode(Type t) {
+        return isPrimitive(t) ? ILOAD : ALOAD;
+    }
 
-        for(StructDeclaration structDeclaration : program.getStructs()){
-            structScope = true;
-            structDeclaration.accept(this);
-            structScope = false;
-            allvars.clear();
-        }
+    private int storeOpcode(Type t) {
+        return isPrimitive(t) ? ISTORE : ASTORE;
+    }
 
-        createFile("Main");
+    private String elementDescriptorOf(ListType listType) {
+        Type elementType = listType.getType();
+        return isPrimitive(elementType) ? descriptorOf(elementType) : "Ljava/lang/Object;";
+    }
 
-        program.getMain().accept(this);
-        allvars.clear();
-        numofUsedTmp = 0;
+    private void getListElement(ListType listType) {
+        String listClass = castType(listType);
+        currentMethod.emitMethod(INVOKEVIRTUAL, listClass, "getElement", "(I)" + elementDescriptorOf(listType));
+        if (!isPrimitive(listType.getType()))
+            currentMethod.emitType(CHECKCAST, castType(listType.getType()));
+    }
 
-        for (FunctionDeclaration functionDeclaration: program.getFunctions()){
-            curFunc = functionDeclaration;
-            functionDeclaration.accept(this);
-            allvars.clear();
-            numofUsedTmp = 0;
+    private void newEmptyList(ListType listType) {
+        String listClass = castType(listType);
+        currentMethod.emitType(NEW, listClass);
+        currentMethod.emit(DUP);
+        if (!listClass.equals("List")) {
+            currentMethod.emitMethod(INVOKESPECIAL, listClass, "<init>", "()V");
+            return;
         }
-        return null;
+        currentMethod.emitType(NEW, "java/util/ArrayList");
+        currentMethod.emit(DUP);
+        currentMethod.emitMethod(INVOKESPECIAL, "java/util/ArrayList", "<init>", "()V");
+        currentMethod.emitMethod(INVOKESPECIAL, "List", "<init>", "(Ljava/util/ArrayList;)V");
+    }
+
+    private void copyList(Expression list, ListType listType) {
+        String listClass = castType(listType);
+        currentMethod.emitType(NEW, listClass);
+        currentMethod.emit(DUP);
+        list.accept(this);
+        currentMethod.emitMethod(INVOKESPECIAL, listClass, "<init>", "(L" + listClass + ";)V");
+    }
+
+    private void pushBool(Label labelFalse, Label labelAfter, boolean valueOnFallThrough) {
+        currentMethod.emitLdc(valueOnFallThrough ? 1 : 0);
+        currentMethod.emitJump(GOTO, labelAfter);
+        currentMethod.mark(labelFalse);
+        currentMethod.emitLdc(valueOnFallThrough ? 0 : 1);
+        currentMethod.mark(labelAfter);
     }
 
     @Override
-    public String visit(StructDeclaration structDeclaration) {
-        try{
-            currStruct = structDeclaration;
-            String structKey = StructSymbolTableItem.START_KEY + structDeclaration.getStructName().getName();
-            StructSymbolTableItem structSymbolTableItem = (StructSymbolTableItem) SymbolTable.root.getItem(structKey);
-            SymbolTable.push(structSymbolTableItem.getStructSymbolTable());
-        }catch (ItemNotFoundException e){//unreachable
-        }
+    public Void visit(Program program) {
+        prepareOutputFolder();
 
-        createFile(structDeclaration.getStructName().getName());
+        ArrayList<ForkJoinTask<ClassModel>> structTasks = new ArrayList<>();
+        for (StructDeclaration structDeclaration : program.getStructs())
+            structTasks.add(fork(structDeclaration, structDeclaration.getStructName().getName()));
+        ForkJoinTask<ClassModel> mainTask = fork(program.getMain(), "Main");
+        ArrayList<ForkJoinTask<ClassModel>> functionTasks = new ArrayList<>();
+        for (FunctionDeclaration functionDeclaration : program.getFunctions())
+            functionTasks.add(fork(functionDeclaration, "Main"));
+
+        for (int i = 0; i < structTasks.size(); i++)
+            merge(structTasks.get(i), program.getStructs().get(i), null);
+        ClassModel mainClass = merge(mainTask, program.getMain(), null);
+        for (int i = 0; i < functionTasks.size(); i++)
+            merge(functionTasks.get(i), program.getFunctions().get(i), mainClass);
+        writeClasses();
+        return null;
+    }
 
-        addCommand(".class " + structDeclaration.getStructName().getName());
-        addCommand(".super java/lang/Object");
+    @Override
+    public Void visit(StructDeclaration structDeclaration) {
+        String structName = structDeclaration.getStructName().getName();
 
         structDeclaration.getBody().accept(this);
-        scopeVars.add(structDeclaration.getStructName().getName());
-        addCommand(".method public <init>()V");
-        addCommand(".limit stack 128");
-        addCommand(".limit locals 128");
-        addCommand("aload 0");
-        addCommand("invokespecial java/lang/Object/<init>()V");
+        startMethod(ACC_PUBLIC, "<init>", "()V");
+        currentMethod.emitVar(ALOAD, 0);
+        currentMethod.emitMethod(INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
 
         for (VariableDeclaration var : allvars) {
             String varName = var.getVarName().getName();
             Type varType = var.getVarType();
-            addCommand("aload 0");
+            currentMethod.emitVar(ALOAD, 0);
             if (varType instanceof FptrType) {
-                addCommand("aconst_null");
-                addCommand("putfield " + structDeclaration.getStructName().getName() + "/" + varName + " L" + castType(varType) + ";\n");
+                currentMethod.emit(ACONST_NULL);
             }
             else if (varType instanceof StructType) {
                 String allvarstructName = ((StructType)varType).getStructName().getName();
-                addCommand("new " + allvarstructName);
-                addCommand("dup");
-                addCommand("invokespecial " + allvarstructName + "/<init>()V");
-                addCommand("putfield " + structDeclaration.getStructName().getName() + "/" + varName + " L" + castType(varType) + ";\n");
+                currentMethod.emitType(NEW, allvarstructName);
+                currentMethod.emit(DUP);
+                currentMethod.emitMethod(INVOKESPECIAL, allvarstructName, "<init>", "()V");
             }
-            else if (varType instanceof IntType || varType instanceof BoolType) {
-                addCommand("ldc 0");
-                addCommand(convertNonPremitive(varType));
-                addCommand("putfield " + structDeclaration.getStructName().getName() + "/" + varName + " L" + castType(varType) + ";\n");
+            else if (isPrimitive(varType)) {
+                currentMethod.emitLdc(0);
             }
             else {
-                addCommand("new List");
-                addCommand("dup");
-                addCommand("new java/util/ArrayList");
-                addCommand("dup");
-                addCommand("invokespecial java/util/ArrayList/<init>()V");
-                addCommand("invokespecial List/<init>(Ljava/util/ArrayList;)V");
-                addCommand("putfield " + structDeclaration.getStructName().getName() + "/" + varName + " L" + castType(varType) + ";\n");
+                newEmptyList((ListType) varType);
             }
+            currentMethod.emitField(PUTFIELD, structName, varName, descriptorOf(varType));
         }
-        addCommand("return");
-        addCommand(".end method");
+        currentMethod.emit(RETURN);
         return null;
     }
 
     @Override
-    public String visit(FunctionDeclaration functionDeclaration) {
+    public Void visit(FunctionDeclaration functionDeclaration) {
         ArrayList<Type> argT = new ArrayList<>();
         Type returnType = null;
 
         try{
             String functionKey = FunctionSymbolTableItem.START_KEY + functionDeclaration.getFunctionName().getName();
-//
-            FunctionSymbolTableItem functionSymbolTableItem = (FunctionSymbolTableItem) SymbolTable.root.getItem(functionKey);
-            SymbolTable.push(functionSymbolTableItem.getFunctionSymbolTable());
+            FunctionSymbolTableItem functionSymbolTableItem = (FunctionSymbolTableItem) context.getRoot().getItem(functionKey);
             argT = functionSymbolTableItem.getArgTypes();
             returnType = functionSymbolTableItem.getReturnType();
         }
         catch(ItemNotFoundException e){//
         }
-        scopeVars.add(functionDeclaration.getFunctionName().getName());
-        String header = "";
-        header += ".method public " + functionDeclaration.getFunctionName().getName() + "(";
-        for (Type vartype: argT)
-            header += "L" + castType(vartype) + ";";
-
-        if (returnType instanceof VoidType)
-            header += ")V";
-        else
-            header += ")L" + castType(returnType) + ";";
-
-        addCommand(header);
-        addCommand(".limit stack 128");
-        addCommand(".limit locals 128");
-
+        startMethod(ACC_PUBLIC, functionDeclaration.getFunctionName().getName(), methodDescriptor(argT, returnType));
+        slots = new SlotAllocator(1);
+        for (VariableDeclaration arg : functionDeclaration.getArgs())
+            slots.declare(arg.getVarName().getName());
         functionDeclaration.getBody().accept(this);
         if (returnType instanceof VoidType)
-            addCommand("return");
-        addCommand(".end method");
-        scopeVars.clear();
-        SymbolTable.pop();
+            currentMethod.emit(RETURN);
         return null;
     }
-    public void addDefaultConstructor() {
-        addCommand(".method public <init>()V");
-        addCommand(".limit stack " + stackLimit);
-        addCommand(".limit locals " + localLimit);
-        addCommand("aload_0");
-        addCommand("invokespecial java/lang/Object/<init>()V");
-        String structName = currStruct.getStructName().getName();
 
-        for(VariableDeclaration var : allvars){
-            String varName = var.getVarName().getName();
-            Type varType = var.getVarType();
-            if(varType instanceof StructType || varType instanceof FptrType){
-                addCommand("aload 0");
-                addCommand("aconst_null");
-                addCommand("putfield " + structName + "/" + varName + " L" + makeTypeSignature(varType) + ";\n");
-            }
-            else if(varType instanceof IntType || varType instanceof BoolType){
-                addCommand("aload 0");
-                addCommand("ldc 0");
-                if(varType instanceof IntType)
-                    addCommand("invokestatic java/lang/Integer/valueOf(I)Ljava/lang/Integer;");
-                if(varType instanceof BoolType)
-                    addCommand("invokestatic java/lang/Boolean/valueOf(Z)Ljava/lang/Boolean;");
-                addCommand("putfield " + structName + "/" + varName + " L" + makeTypeSignature(varType) + ";\n");
-            }
-        }
-
-        addCommand("return");
-        addCommand(".end method");
-    }
     @Override
-    public String visit(MainDeclaration mainDeclaration) {
-        FunctionSymbolTableItem mainFunc = null;
-        try {
-            String functionKey = FunctionSymbolTableItem.START_KEY + "main";
-            mainFunc = (FunctionSymbolTableItem) SymbolTable.root.getItem(functionKey);
-            SymbolTable.push(mainFunc.getFunctionSymbolTable());
-        } catch (ItemNotFoundException e) {//unreachable
-        }
-        addCommand(".class Main");
-        addCommand(".super java/lang/Object");
+    public Void visit(MainDeclaration mainDeclaration) {
         addStaticMainMethod();
-        addCommand(".method public <init>()V");
-        addCommand(".limit stack 128");
-        addCommand(".limit locals 128");
-        addCommand("aload 0");
-        addCommand("invokespecial java/lang/Object/<init>()V");
+        startMethod(ACC_PUBLIC, "<init>", "()V");
+        slots = new SlotAllocator(1);
+        currentMethod.emitVar(ALOAD, 0);
+        currentMethod.emitMethod(INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
 
         mainDeclaration.getBody().accept(this);
-//        addStaticMainMethod();
-//        addDefaultConstructor();
 
-        addCommand("return");
-        addCommand(".end method");
+        currentMethod.emit(RETURN);
         return null;
     }
 
     @Override
-    public String visit(VariableDeclaration variableDeclaration) {
-        scopeVars.add(variableDeclaration.getVarName().getName());
-        allvars.add(variableDeclaration);
-        allvars.add(variableDeclaration);
+    public Void visit(VariableDeclaration variableDeclaration) {
         Type type = variableDeclaration.getVarType();
         String varName = variableDeclaration.getVarName().getName();
-        int slot= slotOf(varName);
 
         if(structScope){
-            addCommand(".field " + varName + " L" + castType(type) + ";");
+            allvars.add(variableDeclaration);
+            currentClass.addField(varName, descriptorOf(type));
+            return null;
         }
-        else {
-            if (type instanceof FptrType){
-                addCommand("aconst_null");
-                addCommand("astore " + slot);
-            }
-            else if(type instanceof StructType){
-                String structName = ((StructType)type).getStructName().getName();
-                addCommand("new " + structName);
-                addCommand("dup");
-                addCommand("invokespecial " + structName  + "/<init>()V");
-                addCommand("astore " + slot);
-            }
-            else if (type instanceof IntType || type instanceof BoolType){
-                addCommand("ldc 0");
-                addCommand(convertNonPremitive(type));
-                addCommand("astore " + slot);
-            }
-            else{
-                addCommand("new List");
-                addCommand("dup");
-                addCommand("new java/util/ArrayList");
-                addCommand("dup");
-                addCommand("invokespecial java/util/ArrayList/<init>()V");
-                addCommand("invokespecial List/<init>(Ljava/util/ArrayList;)V");
-                addCommand("astore " + slot);
-            }
+        int slot = slots.declare(varName);
+        if (type instanceof FptrType){
+            currentMethod.emit(ACONST_NULL);
         }
+        else if(type instanceof StructType){
+            String structName = ((StructType)type).getStructName().getName();
+            currentMethod.emitType(NEW, structName);
+            currentMethod.emit(DUP);
+            currentMethod.emitMethod(INVOKESPECIAL, structName, "<init>", "()V");
+        }
+        else if (isPrimitive(type)){
+            currentMethod.emitLdc(0);
+        }
+        else{
+            newEmptyList((ListType) type);
+        }
+        currentMethod.emitVar(storeOpcode(type), slot);
 
         if(variableDeclaration.getDefaultValue() != null){
-            addCommand(variableDeclaration.getDefaultValue().accept(this));
-            addCommand(convertNonPremitive(type));
-            addCommand("astore " + slot);
+            variableDeclaration.getDefaultValue().accept(this);
+            currentMethod.emitVar(storeOpcode(type), slot);
         }
         return null;
     }
 
-
-
-    @Override
-    public String visit(SetGetVarDeclaration setGetVarDeclaration) {
-        return null;
-    }
-
-
     @Override
-    public String visit(AssignmentStmt assignmentStmt) {
+    public Void visit(AssignmentStmt assignmentStmt) {
         BinaryExpression assignExpr = new BinaryExpression(
                 assignmentStmt.getLValue(),
                 assignmentStmt.getRValue(),
                 BinaryOperator.assign);
-        addCommand(assignExpr.accept(this));
-        addCommand("pop");
+        assignExpr.accept(this);
+        currentMethod.emit(POP);
         return null;
     }
 
     @Override
-    public String visit(BlockStmt blockStmt) {
+    public Void visit(BlockStmt blockStmt) {
         for (Statement statement: blockStmt.getStatements())
             statement.accept(this);
         return null;
     }
 
+    private void visitScoped(Statement body) {
+        slots.beginScope();
+        body.accept(this);
+        slots.endScope();
+    }
+
     @Override
-    public String visit(ConditionalStmt conditionalStmt) {
-        String labelFalse = getFreshLabel();
-        String labelAfter = getFreshLabel();
-        addCommand(conditionalStmt.getCondition().accept(this));
-        addCommand("ifeq " + labelFalse);
-        conditionalStmt.getThenBody().accept(this);
-        addCommand("goto " + labelAfter);
-        addCommand(labelFalse + ":");
+    public Void visit(ConditionalStmt conditionalStmt) {
+        Label labelFalse = new Label();
+        Label labelAfter = new Label();
+        conditionalStmt.getCondition().accept(this);
+        currentMethod.emitJump(IFEQ, labelFalse);
+        visitScoped(conditionalStmt.getThenBody());
+        currentMethod.emitJump(GOTO, labelAfter);
+        currentMethod.mark(labelFalse);
         if (conditionalStmt.getElseBody() != null)
-            conditionalStmt.getElseBody().accept(this);
-        addCommand(labelAfter + ":");
+            visitScoped(conditionalStmt.getElseBody());
+        currentMethod.mark(labelAfter);
         return null;
     }
 
     @Override
-    public String visit(FunctionCallStmt functionCallStmt) {
-        expressionTypeChecker.setInFunctionCallStmt(true);
-        addCommand(functionCallStmt.getFunctionCall().accept(this));
-        addCommand("pop");
-        expressionTypeChecker.setInFunctionCallStmt(false);
+    public Void visit(FunctionCallStmt functionCallStmt) {
+        functionCallStmt.getFunctionCall().accept(this);
+        if (!(typeOf(functionCallStmt.getFunctionCall()) instanceof VoidType))
+            currentMethod.emit(POP);
         return null;
     }
 
     @Override
-    public String visit(DisplayStmt displayStmt) {
-        addCommand("getstatic java/lang/System/out Ljava/io/PrintStream;");
-        Type argType = displayStmt.getArg().accept(expressionTypeChecker);
-        String commandsOfArg = displayStmt.getArg().accept(this);
-
-        addCommand(commandsOfArg);
+    public Void visit(DisplayStmt displayStmt) {
+        currentMethod.emitField(GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
+        Type argType = typeOf(displayStmt.getArg());
+        displayStmt.getArg().accept(this);
         if (argType instanceof IntType)
-            addCommand("invokevirtual java/io/PrintStream/println(I)V");
+            currentMethod.emitMethod(INVOKEVIRTUAL, "java/io/PrintStream", "println", "(I)V");
         if (argType instanceof BoolType)
-            addCommand("invokevirtual java/io/PrintStream/println(Z)V");
-
+            currentMethod.emitMethod(INVOKEVIRTUAL, "java/io/PrintStream", "println", "(Z)V");
         return null;
     }
 
     @Override
-    public String visit(ReturnStmt returnStmt) {
+    public Void visit(ReturnStmt returnStmt) {
         Expression rexpr = returnStmt.getReturnedExpr();
         if(rexpr == null){
-            addCommand("return");
+            currentMethod.emit(RETURN);
             return null;
         }
-        Type type = returnStmt.getReturnedExpr().accept(expressionTypeChecker);
-
+        Type type = typeOf(rexpr);
         if (type instanceof VoidType)
-            addCommand("return");
+            currentMethod.emit(RETURN);
         else{
-            addCommand(returnStmt.getReturnedExpr().accept(this));
-//            addCommand(convertNonPremitive(type));
-            if (type instanceof IntType)
-                addCommand("invokestatic java/lang/Integer/valueOf(I)Ljava/lang/Integer;");
-            if (type instanceof BoolType)
-                addCommand("invokestatic java/lang/Boolean/valueOf(Z)Ljava/lang/Boolean;");
-            addCommand("areturn");
+            rexpr.accept(this);
+            currentMethod.emit(isPrimitive(type) ? IRETURN : ARETURN);
         }
         return null;
     }
 
     @Override
-    public String visit(LoopStmt loopStmt) {
-        String labelAfter = getFreshLabel();
-        String labelFalse = getFreshLabel();
+    public Void visit(LoopStmt loopStmt) {
+        Label labelAfter = new Label();
+        Label labelFalse = new Label();
 
+        currentMethod.mark(labelAfter);
         if (!loopStmt.getIsDoWhile()){
-            addCommand(labelAfter + ":");
-            addCommand(loopStmt.getCondition().accept(this));
-            addCommand("ifeq " + labelFalse);
-            loopStmt.getBody().accept(this);
-            addCommand("goto " + labelAfter);
-            addCommand(labelFalse + ":");
+            loopStmt.getCondition().accept(this);
+            currentMethod.emitJump(IFEQ, labelFalse);
+            visitScoped(loopStmt.getBody());
         }
         else{
-            addCommand(labelAfter + ":");
-            loopStmt.getBody().accept(this);
-            addCommand(loopStmt.getCondition().accept(this));
-            addCommand("ifeq " + labelFalse);
-            addCommand("goto " + labelAfter);
-            addCommand(labelFalse + ":");
+            visitScoped(loopStmt.getBody());
+            loopStmt.getCondition().accept(this);
+            currentMethod.emitJump(IFEQ, labelFalse);
         }
+        currentMethod.emitJump(GOTO, labelAfter);
+        currentMethod.mark(labelFalse);
         return null;
     }
 
     @Override
-    public String visit(VarDecStmt varDecStmt) {
+    public Void visit(VarDecStmt varDecStmt) {
         for (VariableDeclaration variableDeclaration: varDecStmt.getVars())
             variableDeclaration.accept(this);
         return null;
     }
 
     @Override
-    public String visit(ListAppendStmt listAppendStmt) {
-        expressionTypeChecker.setInFunctionCallStmt(true);
-        addCommand(listAppendStmt.getListAppendExpr().accept(this));
-        expressionTypeChecker.setInFunctionCallStmt(false);
+    public Void visit(ListAppendStmt listAppendStmt) {
+        listAppendStmt.getListAppendExpr().accept(this);
         return null;
     }
 
     @Override
-    public String visit(ListSizeStmt listSizeStmt) {
-        addCommand(listSizeStmt.getListSizeExpr().accept(this));
-        addCommand("pop");
+    public Void visit(ListSizeStmt listSizeStmt) {
+        listSizeStmt.getListSizeExpr().accept(this);
+        currentMethod.emit(POP);
         return null;
     }
 
-    @Override
-    public String visit(BinaryExpression binaryExpression) {
-        String commands = "";
-        Type operType = binaryExpression.getFirstOperand().accept(expressionTypeChecker);
-        BinaryOperator operator = binaryExpression.getBinaryOperator();
+    private void visitAssign(BinaryExpression binaryExpression) {
+        Expression lvalue = binaryExpression.getFirstOperand();
+        Expression rvalue = binaryExpression.getSecondOperand();
+        Type firstType = typeOf(lvalue);
 
-        if (operator == BinaryOperator.add){
-            commands += binaryExpression.getFirstOperand().accept(this);
-            commands += binaryExpression.getSecondOperand().accept(this);
-            commands += "iadd\n";
-        }
-        else if (operator == BinaryOperator.sub){
-            commands += binaryExpression.getFirstOperand().accept(this);
-            commands += binaryExpression.getSecondOperand().accept(this);
-            commands += "isub\n";
-        }
-        else if (operator == BinaryOperator.mult){
-            commands += binaryExpression.getFirstOperand().accept(this);
-            commands += binaryExpression.getSecondOperand().accept(this);
-            commands += "imul\n";
-        }
-        else if (operator == BinaryOperator.div){
-            commands += binaryExpression.getFirstOperand().accept(this);
-            commands += binaryExpression.getSecondOperand().accept(this);
-            commands += "idiv\n";
-        }
-        else if (operator == BinaryOperator.gt || operator == BinaryOperator.lt){
-            commands += binaryExpression.getFirstOperand().accept(this);
-            commands += binaryExpression.getSecondOperand().accept(this);
-
-            String labelFalse = getFreshLabel();
-            String labelAfter = getFreshLabel();
-
-            if(operator == BinaryOperator.gt)
-                commands += "if_icmple " + labelFalse + "\n";
-            else
-                commands += "if_icmpge " + labelFalse + "\n";
-            commands += "ldc " + "1\n";
-            commands += "goto " + labelAfter + "\n";
-            commands += labelFalse + ":\n";
-            commands += "ldc " + "0\n";
-            commands += labelAfter + ":\n";
-        }
-        else if (operator == BinaryOperator.eq){
-            commands += binaryExpression.getFirstOperand().accept(this);
-            commands += binaryExpression.getSecondOperand().accept(this);
-
-            String labelFalse = getFreshLabel();
-            String labelAfter = getFreshLabel();
-
-            if (!(operType instanceof IntType) && !(operType instanceof BoolType))
-                commands += "if_acmpne " + labelFalse + "\n";
-            else
-                commands += "if_icmpne " + labelFalse + "\n";
-            commands += "ldc " + "1\n";
-            commands += "goto " + labelAfter + "\n";
-            commands += labelFalse + ":\n";
-            commands += "ldc " + "0\n";
-            commands += labelAfter + ":\n";
-        }
-        else if (operator == BinaryOperator.and){
-            String labelFalse = getFreshLabel();
-            String labelAfter = getFreshLabel();
-            commands += binaryExpression.getFirstOperand().accept(this);
-            commands += "ifeq " + labelFalse + "\n";
-            commands += binaryExpression.getSecondOperand().accept(this);
-            commands += "ifeq " + labelFalse + "\n";
-            commands += "ldc " + "1\n";
-            commands += "goto " + labelAfter + "\n";
-            commands += labelFalse + ":\n";
-            commands += "ldc " + "0\n";
-            commands += labelAfter + ":\n";
-        }
-        else if(operator == BinaryOperator.or) {
-            String labelTrue = getFreshLabel();
-            String labelAfter = getFreshLabel();
-            commands += binaryExpression.getFirstOperand().accept(this);
-            commands += "ifne " + labelTrue + "\n";
-            commands += binaryExpression.getSecondOperand().accept(this);
-            commands += "ifne " + labelTrue + "\n";
-            commands += "ldc " + "0\n";
-            commands += "goto " + labelAfter + "\n";
-            commands += labelTrue + ":\n";
-            commands += "ldc " + "1\n";
-            commands += labelAfter + ":\n";
-        }
-        else if (operator == BinaryOperator.assign){
-            Type firstType = binaryExpression.getFirstOperand().accept(expressionTypeChecker);
-            Type secondType = binaryExpression.getSecondOperand().accept(expressionTypeChecker);
-            String secondOperandCommands = binaryExpression.getSecondOperand().accept(this);
-
-            if(firstType instanceof ListType)
-                secondOperandCommands = "new List\ndup\n" + secondOperandCommands + "invokespecial List/<init>(LList;)V\n";
-            if(secondType instanceof IntType)
-                secondOperandCommands += "invokestatic java/lang/Integer/valueOf(I)Ljava/lang/Integer;\n";
-            if(secondType instanceof BoolType)
-                secondOperandCommands += "invokestatic java/lang/Boolean/valueOf(Z)Ljava/lang/Boolean;\n";
-
-            if(binaryExpression.getFirstOperand() instanceof Identifier){
-                Identifier identifier = (Identifier)binaryExpression.getFirstOperand();
-                int slot = slotOf(identifier.getName());
-                commands += secondOperandCommands;
-                commands += "astore " + slot + "\n";
-                commands += "aload " + slot + "\n";
-                if (secondType instanceof IntType)
-                    commands += "invokevirtual java/lang/Integer/intValue()I\n";
-                if (secondType instanceof BoolType)
-                    commands += "invokevirtual java/lang/Boolean/booleanValue()Z\n";
-            }
-            else if (binaryExpression.getFirstOperand() instanceof ListAccessByIndex){
-                Expression instance = ((ListAccessByIndex) binaryExpression.getFirstOperand()).getInstance();
-                Expression index = ((ListAccessByIndex) binaryExpression.getFirstOperand()).getIndex();
-                commands += instance.accept(this);
-                commands += index.accept(this);
-                commands += secondOperandCommands;
-                commands += "invokevirtual List/setElement(ILjava/lang/Object;)V\n";
-
-                commands += instance.accept(this);
-                commands += index.accept(this);
-                commands += "invokevirtual List/getElement(I)Ljava/lang/Object;\n";
-                commands += "checkcast " + castType(secondType) + "\n";
-                if (secondType instanceof IntType)
-                    commands += "invokevirtual java/lang/Integer/intValue()I\n";
-                if (secondType instanceof BoolType)
-                    commands += "invokevirtual java/lang/Boolean/booleanValue()Z\n";
-            }
-            else {
-                Expression instance = ((StructAccess) binaryExpression.getFirstOperand()).getInstance();
-                StructType instanceType = (StructType)instance.accept(expressionTypeChecker);
-                Identifier element = ((StructAccess) binaryExpression.getFirstOperand()).getElement();
-                String structName = instanceType.getStructName().getName();
-                String varName = element.getName();
-
-                commands += instance.accept(this);
-                commands += secondOperandCommands;
-                commands += "putfield " + structName + "/" + varName + " L" + castType(firstType) + ";\n";
-
-                commands += instance.accept(this);
-                commands += "getfield " + structName + "/" + varName + " L" + castType(firstType) + ";\n";
-            }
+        if(lvalue instanceof Identifier){
+            int slot = slotOf(((Identifier) lvalue).getName());
+            visitAssignedValue(rvalue, firstType);
+            currentMethod.emit(DUP);
+            currentMethod.emitVar(storeOpcode(firstType), slot);
+        }
+        else if (lvalue instanceof ListAccessByIndex){
+            Expression instance = ((ListAccessByIndex) lvalue).getInstance();
+            Expression index = ((ListAccessByIndex) lvalue).getIndex();
+            ListType listType = (ListType) typeOf(instance);
+            instance.accept(this);
+            index.accept(this);
+            visitAssignedValue(rvalue, firstType);
+            currentMethod.emit(DUP_X2);
+            currentMethod.emitMethod(INVOKEVIRTUAL, castType(listType), "setElement", "(I" + elementDescriptorOf(listType) + ")V");
+        }
+        else {
+            Expression instance = ((StructAccess) lvalue).getInstance();
+            StructType instanceType = (StructType) typeOf(instance);
+            String structName = instanceType.getStructName().getName();
+            String varName = ((StructAccess) lvalue).getElement().getName();
+
+            instance.accept(this);
+            visitAssignedValue(rvalue, firstType);
+            currentMethod.emit(DUP_X1);
+            currentMethod.emitField(PUTFIELD, structName, varName, descriptorOf(firstType));
         }
-        return commands;
+    }
+
+    private void visitAssignedValue(Expression rvalue, Type firstType) {
+        if(firstType instanceof ListType)
+            copyList(rvalue, (ListType) firstType);
+        else
+            rvalue.accept(this);
     }
 
     @Override
-    public String visit(UnaryExpression unaryExpression){
+    public Void visit(BinaryExpression binaryExpression) {
+        BinaryOperator operator = binaryExpression.getBinaryOperator();
+        Expression first = binaryExpression.getFirstOperand();
+        Expression second = binaryExpression.getSecondOperand();
+
+        if (operator == BinaryOperator.assign) {
+            visitAssign(binaryExpression);
+        }
+        else if (operator == BinaryOperator.and || operator == BinaryOperator.or) {
+            int jump = operator == BinaryOperator.and ? IFEQ : IFNE;
+            Label labelShortCircuit = new Label();
+            Label labelAfter = new Label();
+            first.accept(this);
+            currentMethod.emitJump(jump, labelShortCircuit);
+            second.accept(this);
+            currentMethod.emitJump(jump, labelShortCircuit);
+            pushBool(labelShortCircuit, labelAfter, operator == BinaryOperator.and);
+        }
+        else {
+            Type operType = typeOf(first);
+            first.accept(this);
+            second.accept(this);
+            if (operator == BinaryOperator.add)
+                currentMethod.emit(IADD);
+            else if (operator == BinaryOperator.sub)
+                currentMethod.emit(ISUB);
+            else if (operator == BinaryOperator.mult)
+                currentMethod.emit(IMUL);
+            else if (operator == BinaryOperator.div)
+                currentMethod.emit(IDIV);
+            else {
+                Label labelFalse = new Label();
+                Label labelAfter = new Label();
+                if (operator == BinaryOperator.gt)
+                    currentMethod.emitJump(IF_ICMPLE, labelFalse);
+                else if (operator == BinaryOperator.lt)
+                    currentMethod.emitJump(IF_ICMPGE, labelFalse);
+                else if (!(operType instanceof IntType) && !(operType instanceof BoolType))
+                    currentMethod.emitJump(IF_ACMPNE, labelFalse);
+                else
+                    currentMethod.emitJump(IF_ICMPNE, labelFalse);
+                pushBool(labelFalse, labelAfter, true);
+            }
+        }
         return null;
     }
 
     @Override
-    public String visit(StructAccess structAccess){
-        String commands = "";
-
-
+    public Void visit(StructAccess structAccess){
         Expression ins = structAccess.getInstance();
-
-        Identifier element = structAccess.getElement();
-        StructType insType = (StructType)ins.accept(expressionTypeChecker);
+        StructType insType = (StructType) typeOf(ins);
         String structName = insType.getStructName().getName();
+        String varName = structAccess.getElement().getName();
+        Type type = typeOf(structAccess);
 
-        String varName = element.getName();
-        Type type = structAccess.accept(expressionTypeChecker);
-
-        commands += ins.accept(this);
-
-        commands += "getfield " + structName + "/" + varName + " L" + castType(type) + ";\n";
-        commands += convertPremitive(type);
-        return commands;
+        ins.accept(this);
+        currentMethod.emitField(GETFIELD, structName, varName, descriptorOf(type));
+        return null;
     }
 
     @Override
-    public String visit(Identifier identifier){
-        String command = "";
-        String Key = FunctionSymbolTableItem.START_KEY + identifier.getName();
-        Type type = identifier.accept(expressionTypeChecker);
-
-        try {
-            SymbolTable.root.getItem(Key);
-            command += "new Fptr\n";
-            command += "dup\n";
-            command += "aload 0\n";
-            command += "ldc \"" + identifier.getName() + "\"\n";
-            command += "invokespecial Fptr/<init>(Ljava/lang/Object;Ljava/lang/String;)V\n";
-        }catch (ItemNotFoundException e){
-
-            int slotNum = slotOf(identifier.getName());
-            command += "aload " + slotNum + "\n";
-            command += convertPremitive(type);
+    public Void visit(Identifier identifier){
+        if (functionOf(identifier) != null) {
+            currentMethod.emitType(NEW, "Fptr");
+            currentMethod.emit(DUP);
+            currentMethod.emitVar(ALOAD, 0);
+            currentMethod.emitLdc(identifier.getName());
+            currentMethod.emitMethod(INVOKESPECIAL, "Fptr", "<init>", "(Ljava/lang/Object;Ljava/lang/String;)V");
         }
-        return command;
+        else
+            currentMethod.emitVar(loadOpcode(typeOf(identifier)), slotOf(identifier.getName()));
+        return null;
     }
 
     @Override
-    public String visit(ListAccessByIndex listAccessByIndex){
-        String commands = "";
-        String command = "";
-        ListType listType = (ListType)listAccessByIndex.getInstance().accept(expressionTypeChecker);
-        Type type = listAccessByIndex.accept(expressionTypeChecker);
-        commands += listAccessByIndex.getInstance().accept(this);
-        commands += listAccessByIndex.getIndex().accept(this);
-        commands += "invokevirtual List/getElement(I)Ljava/lang/Object;\n";
-        commands += "checkcast " + castType(listType.getType()) + "\n";
-        commands += convertPremitive(listType.getType());
-        if (type instanceof IntType)
-            command += "invokevirtual java/lang/Integer/intValue()I\n";
-        if (type instanceof BoolType)
-            command += "invokevirtual java/lang/Boolean/booleanValue()Z\n";
-        return commands;
+    public Void visit(ListAccessByIndex listAccessByIndex){
+        ListType listType = (ListType) typeOf(listAccessByIndex.getInstance());
+        listAccessByIndex.getInstance().accept(this);
+        listAccessByIndex.getIndex().accept(this);
+        getListElement(listType);
+        return null;
     }
 
-    @Override
-    public String visit(FunctionCall functionCall){
-        String commands = "";
-        int tempSlot = slotOf("");
-
-        FptrType fptrType = (FptrType) functionCall.getInstance().accept(expressionTypeChecker);
-        Type retType = fptrType.getReturnType();
-        String command = "";
-        ArrayList<Expression> args = functionCall.getArgs();
-
-        commands += functionCall.getInstance().accept(this);
-        commands += "new java/util/ArrayList\n";
-        commands += "dup\n";
-        commands += "invokespecial java/util/ArrayList/<init>()V\n";
-        commands += "astore " + tempSlot + "\n";
-
-        for(Expression arg : args) {
-            commands += "aload " + tempSlot + "\n";
-
-            Type argType = arg.accept(expressionTypeChecker);
-
-            if(argType instanceof ListType) {
-                commands += "new List\n";
-                commands += "dup\n";
-            }
-            commands += arg.accept(this);
-
-            if(argType instanceof ListType) {
-                commands += "invokespecial List/<init>(LList;)V\n";
-            }
-            commands += convertNonPremitive(argType);
-            commands += "invokevirtual java/util/ArrayList/add(Ljava/lang/Object;)Z\n";
-            commands += "pop\n";
+    private void visitArgument(Expression arg) {
+        visitAssignedValue(arg, typeOf(arg));
+    }
 
+    @Override
+    public Void visit(FunctionCall functionCall){
+        FunctionSymbolTableItem function = functionOf(functionCall.getInstance());
+        if (function != null) {
+            currentMethod.emitVar(ALOAD, 0);
+            for (Expression arg : functionCall.getArgs())
+                visitArgument(arg);
+            String functionName = ((Identifier) functionCall.getInstance()).getName();
+            currentMethod.emitMethod(INVOKEVIRTUAL, "Main", functionName,
+                    methodDescriptor(function.getArgTypes(), function.getReturnType()));
+            return null;
         }
-        commands += "aload " + tempSlot + "\n";
-        commands += "invokevirtual Fptr/invoke(Ljava/util/ArrayList;)Ljava/lang/Object;\n";
-        if(!(retType instanceof VoidType))
-            commands += "checkcast " + makeTypeSignature(retType) + "\n";
-
-        if (retType instanceof IntType)
-            command += "invokevirtual java/lang/Integer/intValue()I\n";
-        if (retType instanceof BoolType)
-            command += "invokevirtual java/lang/Boolean/booleanValue()Z\n";
-
-        if(!(retType instanceof VoidType))
-            commands += "checkcast " + castType(retType) + "\n";
-
-        commands += convertPremitive(retType);
-        return commands;
+        FptrType fptrType = (FptrType) typeOf(functionCall.getInstance());
+        functionCall.getInstance().accept(this);
+        currentMethod.emitMethod(INVOKEVIRTUAL, "Fptr", "getHandle", "()Ljava/lang/invoke/MethodHandle;");
+        for (Expression arg : functionCall.getArgs())
+            visitArgument(arg);
+        currentMethod.emitMethod(INVOKEVIRTUAL, "java/lang/invoke/MethodHandle", "invokeExact",
+                methodDescriptor(fptrType.getArgsType(), fptrType.getReturnType()));
+        return null;
     }
 
     @Override
-    public String visit(ListSize listSize){
-        String commands = "";
-        commands += listSize.getArg().accept(this);
-        commands += "invokevirtual List/getSize()I\n";
-        return commands;
+    public Void visit(ListSize listSize){
+        listSize.getArg().accept(this);
+        currentMethod.emitMethod(INVOKEVIRTUAL, castType(typeOf(listSize.getArg())), "getSize", "()I");
+        return null;
     }
 
     @Override
-    public String visit(ListAppend listAppend) {
-        String commands = "";
-        Type elementType = listAppend.getElementArg().accept(expressionTypeChecker);
-        commands += listAppend.getListArg().accept(this);
-        commands += listAppend.getElementArg().accept(this);
-        commands += convertNonPremitive(elementType);
-        commands += "invokevirtual List/addElement(Ljava/lang/Object;)V\n";
-        return commands;
+    public Void visit(ListAppend listAppend) {
+        ListType listType = (ListType) typeOf(listAppend.getListArg());
+        listAppend.getListArg().accept(this);
+        listAppend.getElementArg().accept(this);
+        currentMethod.emitMethod(INVOKEVIRTUAL, castType(listType), "addElement", "(" + elementDescriptorOf(listType) + ")V");
+        return null;
     }
 
     @Override
-    public String visit(IntValue intValue) {
-        String commands = "";
-        commands += "ldc " + intValue.getConstant() + "\n";
-        return commands;
+    public Void visit(IntValue intValue) {
+        currentMethod.emitLdc(intValue.getConstant());
+        return null;
     }
 
     @Override
-    public String visit(BoolValue boolValue) {
-        String commands = "";
-        if(boolValue.getConstant())
-            commands += "ldc " + "1\n";
-        else
-            commands += "ldc " + "0\n";
-        return commands;
-
+    public Void visit(BoolValue boolValue) {
+        currentMethod.emitLdc(boolValue.getConstant() ? 1 : 0);
+        return null;
     }
 
     @Override
-    public String visit(ExprInPar exprInPar) {
+    public Void visit(ExprInPar exprInPar) {
         return exprInPar.getInputs().get(0).accept(this);
     }
 }
@@ -0,0 +1,53 @@
+package main.visitor.codeGenerator;
+
+import java.util.*;
+
+public class SlotAllocator {
+    private static class Binding {
+        final String name;
+        final Integer previousSlot;
+
+        Binding(String name, Integer previousSlot) {
+            this.name = name;
+            this.previousSlot = previousSlot;
+        }
+    }
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final ArrayDeque<ArrayList<Binding>> scopes = new ArrayDeque<>();
+    private final ArrayDeque<Integer> scopeStarts = new ArrayDeque<>();
+    private int nextSlot;
+
+    public SlotAllocator(int firstSlot) {
+        this.nextSlot = firstSlot;
+        beginScope();
+    }
+
+    public void beginScope() {
+        scopes.push(new ArrayList<>());
+        scopeStarts.push(nextSlot);
+    }
+
+    public void endScope() {
+        ArrayList<Binding> bindings = scopes.pop();
+        for (int i = bindings.size() - 1; i >= 0; i--) {
+            Binding binding = bindings.get(i);
+            if (binding.previousSlot == null)
+                slots.remove(binding.name);
+            else
+                slots.put(binding.name, binding.previousSlot);
+        }
+        nextSlot = scopeStarts.pop();
+    }
+
+    public int declare(String name) {
+        int slot = nextSlot++;
+        scopes.peek().add(new Binding(name, slots.put(name, slot)));
+        return slot;
+    }
+
+    public int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? 0 : slot;
+    }
+}
@@ -5,6 +5,7 @@ import main.ast.nodes.expression.operators.*;
 import main.ast.nodes.expression.values.primitive.*;
 import main.ast.types.*;
 import main.ast.types.primitives.*;
+import main.symbolTable.CompilationContext;
 import main.symbolTable.SymbolTable;
 import main.symbolTable.exceptions.ItemNotFoundException;
 import main.symbolTable.items.FunctionSymbolTableItem;
@@ -18,6 +19,11 @@ public class ExpressionTypeChecker extends Visitor<Type> {
     private boolean inFunctionCallStmt = false;
     private boolean access = false;
     private String accessStructName;
+    private final CompilationContext context;
+
+    public ExpressionTypeChecker(CompilationContext context) {
+        this.context = context;
+    }
 
     public void setInFunctionCallStmt(boolean inFunctionCallStmt) {
         this.inFunctionCallStmt = inFunctionCallStmt;
@@ -63,7 +69,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
     public SymbolTable getStructSymbolTable(String name) {
         try {
             StructSymbolTableItem structItem = (StructSymbolTableItem)
-                    SymbolTable.root.getItem(StructSymbolTableItem.START_KEY + name);
+                    context.getRoot().getItem(StructSymbolTableItem.START_KEY + name);
             return structItem.getStructSymbolTable();
         } catch (ItemNotFoundException ignored) {
             return null;
@@ -74,13 +80,13 @@ public class ExpressionTypeChecker extends Visitor<Type> {
        String name = id.getName();
        try {
            String funcKey = FunctionSymbolTableItem.START_KEY + name;
-           FunctionSymbolTableItem functionItem = (FunctionSymbolTableItem) SymbolTable.root.getItem(funcKey);
+           FunctionSymbolTableItem functionItem = (FunctionSymbolTableItem) context.getRoot().getItem(funcKey);
            return new FptrType(functionItem.getArgTypes(), functionItem.getReturnType());
            
        }catch (ItemNotFoundException e) {
            try {
                String varKey = VariableSymbolTableItem.START_KEY + name;
-               VariableSymbolTableItem varItem = (VariableSymbolTableItem) SymbolTable.top.getItem(varKey);
+               VariableSymbolTableItem varItem = (VariableSymbolTableItem) context.getTop().getItem(varKey);
                return varItem.getType();
            } catch (ItemNotFoundException e2) {
                VarNotDeclared exception = new VarNotDeclared(id.getLine(), name);
@@ -90,11 +96,71 @@ public class ExpressionTypeChecker extends Visitor<Type> {
        }
     }
 
+    private Type cache(Expression expression, Type type) {
+        expression.setType(type);
+        return type;
+    }
+
+    @Override
+    public Type visit(BinaryExpression binaryExpression) {
+        return cache(binaryExpression, check(binaryExpression));
+    }
+
+    @Override
+    public Type visit(UnaryExpression unaryExpression) {
+        return cache(unaryExpression, check(unaryExpression));
+    }
+
+    @Override
+    public Type visit(FunctionCall funcCall) {
+        return cache(funcCall, check(funcCall));
+    }
+
+    @Override
+    public Type visit(Identifier identifier) {
+        return cache(identifier, check(identifier));
+    }
+
+    @Override
+    public Type visit(ListAccessByIndex listAccessByIndex) {
+        return cache(listAccessByIndex, check(listAccessByIndex));
+    }
+
+    @Override
+    public Type visit(StructAccess structAccess) {
+        return cache(structAccess, check(structAccess));
+    }
+
+    @Override
+    public Type visit(ListSize listSize) {
+        return cache(listSize, check(listSize));
+    }
+
+    @Override
+    public Type visit(ListAppend listAppend) {
+        return cache(listAppend, check(listAppend));
+    }
+
+    @Override
+    public Type visit(ExprInPar exprInPar) {
+        return cache(exprInPar, check(exprInPar));
+    }
+
+    @Override
+    public Type visit(IntValue intValue) {
+        return cache(intValue, check(intValue));
+    }
+
+    @Override
+    public Type visit(BoolValue boolValue) {
+        return cache(boolValue, check(boolValue));
+    }
+
     public boolean isLvalue(Expression expr){
         if(expr instanceof Identifier){
             try {
                 String funcKey = FunctionSymbolTableItem.START_KEY + ((Identifier)expr).getName();
-                SymbolTable.root.getItem(funcKey);
+                context.getRoot().getItem(funcKey);
             }catch (ItemNotFoundException e) {
                 return true;
             }
@@ -109,8 +175,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
     }
 
 
-    @Override
-    public Type visit(BinaryExpression binaryExpression) {
+    private Type check(BinaryExpression binaryExpression) {
         Expression left = binaryExpression.getFirstOperand();
         Expression right = binaryExpression.getSecondOperand();
 
@@ -190,8 +255,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
 
     }
 
-    @Override
-    public Type visit(UnaryExpression unaryExpression) {
+    private Type check(UnaryExpression unaryExpression) {
         Expression uExpr = unaryExpression.getOperand();
         Type uType = uExpr.accept(this);
         UnaryOperator operator = unaryExpression.getOperator();
@@ -215,8 +279,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         return new NoType();
     }
 
-    @Override
-    public Type visit(FunctionCall funcCall) {
+    private Type check(FunctionCall funcCall) {
         boolean err = false;
         boolean preInFunctionCallStmt = inFunctionCallStmt;
         ArrayList<Type> funcCallArgsType = new ArrayList<>();
@@ -274,8 +337,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
             return fptrType.getReturnType();
     }
 
-    @Override
-    public Type visit(Identifier identifier) {
+    private Type check(Identifier identifier) {
         if (access) {
             SymbolTable thisStruct = getStructSymbolTable(accessStructName);
             try {
@@ -294,8 +356,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         }
     }
 
-    @Override
-    public Type visit(ListAccessByIndex listAccessByIndex) {
+    private Type check(ListAccessByIndex listAccessByIndex) {
         Type indexType = listAccessByIndex.getIndex().accept(this);
         Type instanceType = listAccessByIndex.getInstance().accept(this);
 
@@ -320,8 +381,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         }
     }
 
-    @Override
-    public Type visit(StructAccess structAccess) {
+    private Type check(StructAccess structAccess) {
         Expression instance = structAccess.getInstance();
         Identifier element = structAccess.getElement();
         Type instanceType = instance.accept(this);
@@ -341,8 +401,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         }
     }
 
-    @Override
-    public Type visit(ListSize listSize) {
+    private Type check(ListSize listSize) {
         Type type = listSize.getArg().accept(this);
         if (type instanceof NoType)
             return new NoType();
@@ -353,8 +412,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         return new NoType();
     }
 
-    @Override
-    public Type visit(ListAppend listAppend) {
+    private Type check(ListAppend listAppend) {
         if (!inFunctionCallStmt){
             CantUseValueOfVoidFunction exception = new CantUseValueOfVoidFunction(listAppend.getLine());
             listAppend.addError(exception);
@@ -379,18 +437,15 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         return new NoType();
     }
 
-    @Override
-    public Type visit(ExprInPar exprInPar) {
+    private Type check(ExprInPar exprInPar) {
         return exprInPar.getInputs().get(0).accept(this);
     }
 
-    @Override
-    public Type visit(IntValue intValue) {
+    private Type check(IntValue intValue) {
         return new IntType();
     }
 
-    @Override
-    public Type visit(BoolValue boolValue) {
+    private Type check(BoolValue boolValue) {
         return new BoolType();
     }
 }
@@ -10,6 +10,7 @@ import main.ast.nodes.statement.*;
 import main.ast.types.*;
 import main.ast.types.primitives.*;
 import main.compileError.typeError.*;
+import main.symbolTable.CompilationContext;
 import main.symbolTable.SymbolTable;
 import main.symbolTable.exceptions.*;
 import main.symbolTable.items.*;
@@ -18,12 +19,23 @@ import main.visitor.Visitor;
 import java.util.*;
 
 public class TypeChecker extends Visitor<Void> {
-    private final ExpressionTypeChecker expressionTypeChecker = new ExpressionTypeChecker();
+    private final CompilationContext context;
+    private final ExpressionTypeChecker expressionTypeChecker;
     private FunctionDeclaration curFunction;
     private boolean validForReturn = true;
     private boolean validForVarDec = true;
     private boolean hasReturn = false;
     Set<String> undefined = new HashSet<>();
+    private final Set<FunctionDeclaration> upToDate = new HashSet<>();
+
+    public TypeChecker(CompilationContext context) {
+        this.context = context;
+        this.expressionTypeChecker = new ExpressionTypeChecker(context);
+    }
+
+    public void skip(FunctionDeclaration functionDec) {
+        upToDate.add(functionDec);
+    }
 
     public void checkForUndefinedStructs(Type type){
         if (type instanceof StructType){
@@ -48,7 +60,8 @@ public class TypeChecker extends Visitor<Void> {
         for (StructDeclaration structDec: program.getStructs())
             structDec.accept(this);
         for (FunctionDeclaration functionDec: program.getFunctions())
-            functionDec.accept(this);
+            if (!upToDate.contains(functionDec))
+                functionDec.accept(this);
         program.getMain().accept(this);
         return null;
     }
@@ -57,8 +70,8 @@ public class TypeChecker extends Visitor<Void> {
     public Void visit(StructDeclaration structDec) {
         String name = structDec.getStructName().getName();
         try {
-            StructSymbolTableItem structItem = (StructSymbolTableItem) SymbolTable.root.getItem(StructSymbolTableItem.START_KEY + name);
-            SymbolTable.push(structItem.getStructSymbolTable());
+            StructSymbolTableItem structItem = (StructSymbolTableItem) context.getRoot().getItem(StructSymbolTableItem.START_KEY + name);
+            context.push(structItem.getStructSymbolTable());
             structDec.getBody().accept(this);
         } catch (ItemNotFoundException exception) {//unReachable
         }
@@ -81,13 +94,13 @@ public class TypeChecker extends Visitor<Void> {
 
         try {
             String funcKey = FunctionSymbolTableItem.START_KEY + functionDec.getFunctionName().getName();
-            functionItem = (FunctionSymbolTableItem) SymbolTable.root.getItem(funcKey);
+            functionItem = (FunctionSymbolTableItem) context.getRoot().getItem(funcKey);
             functionItem.setReturnType(type);
         }catch (ItemNotFoundException e) {//unreachable
         }
 
         SymbolTable newSymbolTable = new SymbolTable();
-        SymbolTable.push(newSymbolTable);
+        context.push(newSymbolTable);
         curFunction = functionDec;
 
         for(VariableDeclaration arg: functionDec.getArgs())
@@ -95,7 +108,7 @@ public class TypeChecker extends Visitor<Void> {
 
         functionDec.getBody().accept(this);
 
-        SymbolTable.pop();
+        context.pop();
         functionItem.setFunctionSymbolTable(newSymbolTable);
 
         if(!hasReturn && !(curFunction.getReturnType() instanceof VoidType)){
@@ -113,17 +126,17 @@ public class TypeChecker extends Visitor<Void> {
         functionDeclaration.setArgs(new ArrayList<>());
         FunctionSymbolTableItem functionSymbolTableItem = new FunctionSymbolTableItem(functionDeclaration);
         try {
-            SymbolTable.root.put(functionSymbolTableItem);
+            context.getRoot().put(functionSymbolTableItem);
         }
         catch (ItemAlreadyExistsException e){//unreachable
         }
 
         SymbolTable newSymbolTable = new SymbolTable();
-        SymbolTable.push(newSymbolTable);
+        context.push(newSymbolTable);
         validForReturn = false;
         mainDec.getBody().accept(this);
         validForReturn = true;
-        SymbolTable.pop();
+        context.pop();
         functionSymbolTableItem.setFunctionSymbolTable(newSymbolTable);
         return null;
     }
@@ -133,11 +146,11 @@ public class TypeChecker extends Visitor<Void> {
         String name = variableDec.getVarName().getName();
         VariableSymbolTableItem varItem;
         try { //struct
-            varItem = (VariableSymbolTableItem) SymbolTable.top.getItem(VariableSymbolTableItem.START_KEY + name);
+            varItem = (VariableSymbolTableItem) context.getTop().getItem(VariableSymbolTableItem.START_KEY + name);
         } catch (ItemNotFoundException exception) { //function & main
             varItem = new VariableSymbolTableItem(variableDec.getVarName());
             try {
-                SymbolTable.top.put(varItem);
+                context.getTop().put(varItem);
             }catch (ItemAlreadyExistsException e) {//unReachable
             }
         }
@@ -166,7 +179,7 @@ public class TypeChecker extends Visitor<Void> {
     public Void visit(SetGetVarDeclaration setGetVarDec) {
         try {
             String varKey = VariableSymbolTableItem.START_KEY + setGetVarDec.getVarName().getName();
-            VariableSymbolTableItem varItem = (VariableSymbolTableItem) SymbolTable.top.getItem(varKey);
+            VariableSymbolTableItem varItem = (VariableSymbolTableItem) context.getTop().getItem(varKey);
             varItem.setType(setGetVarDec.getVarType());
         } catch (ItemNotFoundException exception) {//unreachable
         }
@@ -175,8 +188,8 @@ public class TypeChecker extends Visitor<Void> {
         newFuncDec.setReturnType(setGetVarDec.getVarType());
         curFunction = newFuncDec;
 
-        SymbolTable newSymbolTable = new SymbolTable(SymbolTable.top);
-        SymbolTable.push(newSymbolTable);
+        SymbolTable newSymbolTable = new SymbolTable(context.getTop());
+        context.push(newSymbolTable);
 
         for(VariableDeclaration varDec : setGetVarDec.getArgs()){
             varDec.accept(this);
@@ -184,7 +197,7 @@ public class TypeChecker extends Visitor<Void> {
         validForReturn = false;
         validForVarDec = false;
         setGetVarDec.getSetterBody().accept(this);
-        SymbolTable.pop();
+        context.pop();
         validForReturn = true;
         setGetVarDec.getGetterBody().accept(this);
         validForVarDec = true;
@@ -226,19 +239,19 @@ public class TypeChecker extends Visitor<Void> {
             ConditionNotBool exception = new ConditionNotBool(conditionalStmt.getLine());
             conditionalStmt.addError(exception);
         }
-        SymbolTable newSymbolTable = new SymbolTable(SymbolTable.top);
-        SymbolTable.push(newSymbolTable);
+        SymbolTable newSymbolTable = new SymbolTable(context.getTop());
+        context.push(newSymbolTable);
         hasReturn = false;
         conditionalStmt.getThenBody().accept(this);
         hasReturnIf = hasReturn;
-        SymbolTable.pop();
+        context.pop();
         if(conditionalStmt.getElseBody() != null) {
-            newSymbolTable = new SymbolTable(SymbolTable.top);
-            SymbolTable.push(newSymbolTable);
+            newSymbolTable = new SymbolTable(context.getTop());
+            context.push(newSymbolTable);
             hasReturn = false;
             conditionalStmt.getElseBody().accept(this);
             hasReturnElse = hasReturn;
-            SymbolTable.pop();
+            context.pop();
         }
         if(hasReturnCur){
             hasReturn = true;
@@ -294,10 +307,10 @@ public class TypeChecker extends Visitor<Void> {
             loopStmt.addError(exception);
         }
 
-        SymbolTable newSymbolTable = new SymbolTable(SymbolTable.top);
-        SymbolTable.push(newSymbolTable);
+        SymbolTable newSymbolTable = new SymbolTable(context.getTop());
+        context.push(newSymbolTable);
         loopStmt.getBody().accept(this);
-        SymbolTable.pop();
+        context.pop();
 
         hasReturn = hasReturnCur;
         return null;
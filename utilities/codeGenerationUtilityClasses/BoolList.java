@@ -0,0 +1,58 @@
+import java.util.Arrays;
+
+public class BoolList {
+    long[] words;
+    int size;
+    private boolean shared;
+
+    public BoolList() {
+        this.words = new long[1];
+    }
+
+    public BoolList(BoolList that) {
+        this.words = that.words;
+        this.size = that.size;
+        this.shared = true;
+        that.shared = true;
+    }
+
+    private void own(int capacity) {
+        int length = this.words.length;
+        int needed = (capacity + 63) >> 6;
+        if(needed > length)
+            length = Math.max(needed, length << 1);
+        else if(!this.shared)
+            return;
+        this.words = Arrays.copyOf(this.words, length);
+        this.shared = false;
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= this.size)
+            throw new ArrayIndexOutOfBoundsException(index);
+    }
+
+    public boolean getElement(int index) {
+        checkIndex(index);
+        return (this.words[index >> 6] & (1L << index)) != 0;
+    }
+
+    public void setElement(int index, boolean value) {
+        checkIndex(index);
+        own(this.size);
+        long mask = 1L << index;
+        long word = this.words[index >> 6] | mask;
+        if(!value)
+            word ^= mask;
+        this.words[index >> 6] = word;
+    }
+
+    public int getSize() {return this.size;}
+
+    public void addElement(boolean value) {
+        own(this.size + 1);
+        this.size++;
+        setElement(this.size - 1, value);
+    }
+
+}
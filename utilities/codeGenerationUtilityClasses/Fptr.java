@@ -1,36 +1,38 @@
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
+import java.util.HashMap;
 
 public class Fptr {
     Object instance;
     String methodName;
+    MethodHandle handle;
+    static HashMap<String, MethodHandle> handles = new HashMap<>();
 
     public Fptr(Object instance, String methodName) {
         this.instance = instance;
         this.methodName = methodName;
     }
 
-    public Object invoke(ArrayList<Object> arguments) {
-        int argumentsSize = arguments.size();
-        Class[] argsClasses = new Class[argumentsSize];
-        Object[] argsArray = new Object[argumentsSize];
-        for(int i = 0; i < argumentsSize; i++) {
-            argsClasses[i] = arguments.get(i).getClass();
-            argsArray[i] = arguments.get(i);
+    private MethodHandle resolve() throws IllegalAccessException {
+        MethodHandle target = handles.get(this.methodName);
+        if (target == null) {
+            for (Method candidate : this.instance.getClass().getDeclaredMethods())
+                if (candidate.getName().equals(this.methodName))
+                    target = MethodHandles.publicLookup().unreflect(candidate).bindTo(this.instance);
+            handles.put(this.methodName, target);
         }
-        Method objectMethod = null;
-        try {
-            objectMethod = this.instance.getClass().getMethod(this.methodName, argsClasses);
-        } catch (NoSuchMethodException e) { 
-            e.printStackTrace();
-        }
-        try {
-            return objectMethod.invoke(this.instance, argsArray);
-        } catch (IllegalAccessException | InvocationTargetException e) { 
-            e.printStackTrace();
-            System.exit(1);
+        return target;
+    }
+
+    public MethodHandle getHandle() {
+        if (this.handle == null) {
+            try {
+                this.handle = resolve();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
         }
-        return null;
+        return this.handle;
     }
-}
\ No newline at end of file
+}
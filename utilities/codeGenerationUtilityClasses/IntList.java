@@ -0,0 +1,52 @@
+import java.util.Arrays;
+
+public class IntList {
+    int[] elements;
+    int size;
+    private boolean shared;
+
+    public IntList() {
+        this.elements = new int[10];
+    }
+
+    public IntList(IntList that) {
+        this.elements = that.elements;
+        this.size = that.size;
+        this.shared = true;
+        that.shared = true;
+    }
+
+    private void own(int capacity) {
+        int length = this.elements.length;
+        if(capacity > length)
+            length = Math.max(capacity, length + (length >> 1));
+        else if(!this.shared)
+            return;
+        this.elements = Arrays.copyOf(this.elements, length);
+        this.shared = false;
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= this.size)
+            throw new ArrayIndexOutOfBoundsException(index);
+    }
+
+    public int getElement(int index) {
+        checkIndex(index);
+        return this.elements[index];
+    }
+
+    public void setElement(int index, int value) {
+        checkIndex(index);
+        own(this.size);
+        this.elements[index] = value;
+    }
+
+    public int getSize() {return this.size;}
+
+    public void addElement(int value) {
+        own(this.size + 1);
+        this.elements[this.size++] = value;
+    }
+
+}
@@ -2,6 +2,7 @@ import java.util.ArrayList;
 
 public class List {
     public ArrayList<Object> elements;
+    private boolean shared;
 
     public List(ArrayList<Object> newElements) {
         this.elements = new ArrayList<>();
@@ -10,22 +11,54 @@ public class List {
     }
 
     public List(List that) {
-        this(that.elements);
+        this.elements = that.elements;
+        this.shared = true;
+        that.shared = true;
+    }
+
+    private static boolean isList(Object o) {
+        return o instanceof List || o instanceof ListVector || o instanceof IntList || o instanceof BoolList;
     }
 
     private Object getNewObject(Object o) {
         if(o instanceof List)
             return new List((List) o);
+        else if(o instanceof ListVector)
+            return new ListVector((ListVector) o);
+        else if(o instanceof IntList)
+            return new IntList((IntList) o);
+        else if(o instanceof BoolList)
+            return new BoolList((BoolList) o);
         else
             return o;
     }
 
+    private void own() {
+        if(!this.shared)
+            return;
+        ArrayList<Object> copy = new ArrayList<>(this.elements.size());
+        for(Object element : this.elements)
+            copy.add(getNewObject(element));
+        this.elements = copy;
+        this.shared = false;
+    }
+
     public Object getElement(int index) {
+        if(this.shared && isList(this.elements.get(index)))
+            own();
         return this.elements.get(index);
     }
 
+    public void setElement(int index, Object o) {
+        own();
+        this.elements.set(index, o);
+    }
+
     public int getSize() {return this.elements.size();}
 
-    public void addElement(Object o) {this.elements.add(getNewObject(o));}
+    public void addElement(Object o) {
+        own();
+        this.elements.add(getNewObject(o));
+    }
 
-}
\ No newline at end of file
+}
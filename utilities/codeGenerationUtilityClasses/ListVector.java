@@ -0,0 +1,107 @@
+public class ListVector {
+    static final int BITS = 5;
+    static final int WIDTH = 1 << BITS;
+    static final int MASK = WIDTH - 1;
+
+    Object[] root;
+    int shift;
+    int size;
+    private Object edit;
+
+    public ListVector() {
+        this.edit = new Object();
+        this.root = newNode();
+    }
+
+    public ListVector(ListVector that) {
+        this.root = that.root;
+        this.shift = that.shift;
+        this.size = that.size;
+        this.edit = new Object();
+        that.edit = new Object();
+    }
+
+    private Object[] newNode() {
+        Object[] node = new Object[WIDTH + 1];
+        node[WIDTH] = this.edit;
+        return node;
+    }
+
+    private static boolean isList(Object o) {
+        return o instanceof List || o instanceof ListVector || o instanceof IntList || o instanceof BoolList;
+    }
+
+    private static Object getNewObject(Object o) {
+        if(o instanceof List)
+            return new List((List) o);
+        else if(o instanceof ListVector)
+            return new ListVector((ListVector) o);
+        else if(o instanceof IntList)
+            return new IntList((IntList) o);
+        else if(o instanceof BoolList)
+            return new BoolList((BoolList) o);
+        else
+            return o;
+    }
+
+    private Object[] own(Object[] node, boolean leaf) {
+        if(node[WIDTH] == this.edit)
+            return node;
+        Object[] copy = newNode();
+        for(int i = 0; i < WIDTH; i++)
+            copy[i] = leaf ? getNewObject(node[i]) : node[i];
+        return copy;
+    }
+
+    private Object[] ownedLeaf(int index) {
+        this.root = own(this.root, this.shift == 0);
+        Object[] node = this.root;
+        for(int level = this.shift; level > 0; level -= BITS) {
+            int slot = (index >>> level) & MASK;
+            Object[] child = (Object[]) node[slot];
+            child = child == null ? newNode() : own(child, level == BITS);
+            node[slot] = child;
+            node = child;
+        }
+        return node;
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= this.size)
+            throw new ArrayIndexOutOfBoundsException(index);
+    }
+
+    private Object[] leaf(int index) {
+        checkIndex(index);
+        Object[] node = this.root;
+        for(int level = this.shift; level > 0; level -= BITS)
+            node = (Object[]) node[(index >>> level) & MASK];
+        return node;
+    }
+
+    public Object getElement(int index) {
+        Object[] node = leaf(index);
+        if(node[WIDTH] != this.edit && isList(node[index & MASK]))
+            node = ownedLeaf(index);
+        return node[index & MASK];
+    }
+
+    public void setElement(int index, Object o) {
+        checkIndex(index);
+        ownedLeaf(index)[index & MASK] = o;
+    }
+
+    public int getSize() {return this.size;}
+
+    public void addElement(Object o) {
+        if(this.size == 1 << (this.shift + BITS)) {
+            Object[] newRoot = newNode();
+            newRoot[0] = this.root;
+            this.root = newRoot;
+            this.shift += BITS;
+        }
+        ownedLeaf(this.size)[this.size & MASK] = getNewObject(o);
+        this.size++;
+    }
+
+}